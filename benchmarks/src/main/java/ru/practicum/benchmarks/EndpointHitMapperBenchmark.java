@@ -0,0 +1,57 @@
+package ru.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.stats_server.dto.EndpointHitDto;
+import ru.practicum.stats_server.dto.EndpointHitMapper;
+import ru.practicum.stats_server.model.EndpointHit;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Преобразование пачки просмотров POST /hits/batch в сущности (с разбором времени) и обратно для выгрузки
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndpointHitMapperBenchmark {
+    @Param({"100", "1000", "10000"})
+    int hits;
+
+    private List<EndpointHitDto> dtos;
+    private List<EndpointHit> entities;
+
+    @Setup
+    public void setUp() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        dtos = new ArrayList<>(hits);
+        for (int i = 0; i < hits; i++) {
+            dtos.add(EndpointHitDto.builder()
+                    .app("main_server")
+                    .uri("/events/" + (i % 500))
+                    .ip("10.0." + (i >> 8 & 0xFF) + "." + (i & 0xFF))
+                    .timestamp(Fixtures.NOW.plusSeconds(i).format(formatter))
+                    .build());
+        }
+        entities = dtos.stream().map(EndpointHitMapper::toEndpointHit).collect(Collectors.toList());
+        for (int i = 0; i < hits; i++) {
+            entities.get(i).setId(i + 1L);
+        }
+    }
+
+    @Benchmark
+    public List<EndpointHit> toEndpointHit() {
+        return dtos.stream().map(EndpointHitMapper::toEndpointHit).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<EndpointHitDto> toEndpointHitDto() {
+        return entities.stream().map(EndpointHitMapper::toEndpointHitDto).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.main_server.mapper.EventMapper;
+import ru.practicum.main_server.model.Event;
+import ru.practicum.main_server.model.dto.EventFullDto;
+import ru.practicum.main_server.model.dto.EventShortDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Преобразование страницы событий в DTO (EventMapper), как в выдаче /events и подборок
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventMapperBenchmark {
+    @Param({"10", "100", "1000"})
+    int events;
+
+    private List<Event> page;
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.events(events);
+    }
+
+    @Benchmark
+    public List<EventShortDto> toEventShortDto() {
+        return page.stream().map(EventMapper::toEventShortDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<EventFullDto> toEventFullDto() {
+        return page.stream().map(EventMapper::toEventFullDto).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.benchmarks;
+
+import ru.practicum.main_server.model.Category;
+import ru.practicum.main_server.model.Event;
+import ru.practicum.main_server.model.Location;
+import ru.practicum.main_server.model.State;
+import ru.practicum.main_server.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Наборы данных бенчмарков
+ */
+final class Fixtures {
+    static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return опубликованные события с айди 1..count, общими категорией, инициатором и локацией
+     */
+    static List<Event> events(int count) {
+        Category category = Category.builder().id(1L).name("concerts").build();
+        User initiator = User.builder().id(1L).name("Ivan").email("ivan@mail.ru").build();
+        Location location = Location.builder().id(1L).lat(55.75f).lon(37.62f).build();
+        List<Event> events = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            events.add(Event.builder()
+                    .id(id)
+                    .annotation("Большой концерт под открытым небом " + id)
+                    .description("Описание концерта в парке, вход свободный, начало в 18:00 " + id)
+                    .title("Концерт " + id)
+                    .category(category)
+                    .initiator(initiator)
+                    .location(location)
+                    .createdOn(NOW.minusDays(id % 30))
+                    .publishedOn(NOW.minusDays(id % 30).plusHours(1))
+                    .eventDate(NOW.plusDays(id % 90))
+                    .paid(id % 2 == 0)
+                    .participantLimit(id % 5 * 10)
+                    .requestModeration(true)
+                    .state(State.PUBLISHED)
+                    .confirmedRequests(id % 7)
+                    .views((int) (id * 13 % 1000))
+                    .build());
+        }
+        return events;
+    }
+}
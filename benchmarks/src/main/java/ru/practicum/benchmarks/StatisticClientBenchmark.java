@@ -0,0 +1,118 @@
+package ru.practicum.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.practicum.main_server.client.StatisticClient;
+import ru.practicum.main_server.client.StatisticClientProperties;
+import ru.practicum.main_server.model.Event;
+import ru.practicum.main_server.model.dto.ViewStats;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Просмотры событий в StatisticClient: разбор ответа /stats и сведение его по айди событий (fetchViews),
+ * и проставление просмотров странице событий из прогретого кэша (getEventsWithViews). Сервер статистики
+ * заменен перехватчиком RestTemplate с готовым ответом, поэтому сеть в замер не входит.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticClientBenchmark {
+    @Param({"10", "100", "1000"})
+    int events;
+
+    private StatisticClient client;
+    private List<Event> page;
+    private Map<Long, LocalDateTime> createdOn;
+
+    @Setup
+    public void setUp() throws Exception {
+        page = Fixtures.events(events);
+        createdOn = page.stream().collect(Collectors.toMap(Event::getId, Event::getCreatedOn));
+        byte[] stats = new ObjectMapper().writeValueAsBytes(page.stream()
+                .map(e -> ViewStats.builder().app("main_server").uri("/events/" + e.getId()).hits(e.getViews()).build())
+                .collect(Collectors.toList()));
+        StatisticClientProperties properties = new StatisticClientProperties();
+        properties.getViews().setCacheMaxSize(events * 2L);
+        // ObjectMapper как у Spring Boot: ViewStats создается через конструктор по именам параметров
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new ParameterNamesModule())
+                .build();
+        client = new StatisticClient("http://stats.invalid", new RestTemplateBuilder()
+                .messageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .additionalInterceptors((request, body, execution) -> new CannedResponse(stats)),
+                properties, new SimpleMeterRegistry());
+        client.getEventsWithViews(page);
+    }
+
+    @Benchmark
+    public Map<Long, Integer> fetchViews() {
+        return client.fetchViews(createdOn);
+    }
+
+    @Benchmark
+    public List<Event> getEventsWithViewsCached() {
+        return client.getEventsWithViews(page);
+    }
+
+    /**
+     * Ответ сервера статистики без обращения к сети
+     */
+    static class CannedResponse implements ClientHttpResponse {
+        private final byte[] body;
+
+        CannedResponse(byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return HttpStatus.OK.value();
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(body.length);
+            return headers;
+        }
+    }
+}
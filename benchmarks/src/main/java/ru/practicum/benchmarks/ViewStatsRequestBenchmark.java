@@ -0,0 +1,101 @@
+package ru.practicum.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.stats_server.dto.HitVisitor;
+import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.model.EndpointHit;
+import ru.practicum.stats_server.repository.HitStorage;
+import ru.practicum.stats_server.service.StatisticService;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Обработка запроса /stats в StatisticService.getViewStats без хранилища: декодирование и разбор start и end
+ * и сборка ответа. Точный подсчет уникальных (exact=true) идет одним вызовом хранилища, которое здесь
+ * возвращает готовый результат.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewStatsRequestBenchmark {
+    @Param({"1", "10", "100"})
+    int uris;
+
+    private StatisticService service;
+    private String start;
+    private String end;
+    private List<String> uriList;
+
+    @Setup
+    public void setUp() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        start = URLEncoder.encode(Fixtures.NOW.minusDays(365).format(formatter), StandardCharsets.UTF_8);
+        end = URLEncoder.encode(Fixtures.NOW.format(formatter), StandardCharsets.UTF_8);
+        uriList = new ArrayList<>(uris);
+        List<ViewStats> stats = new ArrayList<>(uris);
+        for (int i = 1; i <= uris; i++) {
+            uriList.add("/events/" + i);
+            stats.add(new ViewStats("main_server", "/events/" + i, i * 13L));
+        }
+        service = new StatisticService(new FixedHitStorage(stats), null, null, new ObjectMapper(),
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public List<ViewStats> getViewStats() throws Exception {
+        return service.getViewStats(start, end, uriList, true, true);
+    }
+
+    /**
+     * Хранилище, отвечающее на подсчет уникальных просмотров готовым результатом
+     */
+    static class FixedHitStorage implements HitStorage {
+        private final List<ViewStats> stats;
+
+        FixedHitStorage(List<ViewStats> stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public EndpointHit save(EndpointHit hit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int saveAll(List<EndpointHit> hits) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ViewStats> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+            return stats;
+        }
+
+        @Override
+        public List<ViewStats> countUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+            return stats;
+        }
+
+        @Override
+        public List<HitVisitor> findVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void exportHits(LocalDateTime start, LocalDateTime end, String app, Consumer<EndpointHit> consumer) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
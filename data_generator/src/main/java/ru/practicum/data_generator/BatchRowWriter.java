@@ -0,0 +1,56 @@
+package ru.practicum.data_generator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Запись строк пачками JDBC batch insert для баз без COPY (H2 в тестах)
+ */
+class BatchRowWriter implements RowWriter {
+    private final PreparedStatement statement;
+    private final int batchSize;
+    private int pending;
+    private long rows;
+
+    BatchRowWriter(Connection connection, String table, List<String> columns, int batchSize) throws SQLException {
+        this.statement = connection.prepareStatement("INSERT INTO " + table + " (" + String.join(", ", columns) +
+                ") VALUES (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")");
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            statement.setObject(i + 1, value instanceof LocalDateTime ? Timestamp.valueOf((LocalDateTime) value)
+                    : value);
+        }
+        statement.addBatch();
+        rows++;
+        if (++pending == batchSize) {
+            statement.executeBatch();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.data_generator;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Запись строк через COPY ... FROM STDIN в формате CSV. Строки копятся в буфере и отправляются серверу
+ * кусками по BUFFER_SIZE символов; null передается пустым полем без кавычек, строки всегда в кавычках.
+ */
+class CopyRowWriter implements RowWriter {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 4096);
+    private long rows;
+
+    CopyRowWriter(BaseConnection connection, String table, List<String> columns) throws SQLException {
+        copyIn = new CopyManager(connection).copyIn("COPY " + table + " (" + String.join(", ", columns) +
+                ") FROM STDIN WITH (FORMAT csv)");
+    }
+
+    @Override
+    public void write(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            append(values[i]);
+        }
+        buffer.append('\n');
+        rows++;
+        if (buffer.length() >= BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private void append(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof String) {
+            buffer.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+        } else if (value instanceof Boolean) {
+            buffer.append((Boolean) value ? 't' : 'f');
+        } else if (value instanceof LocalDateTime) {
+            buffer.append(TIMESTAMP.format((LocalDateTime) value));
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() == 0) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.data_generator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Генератор синтетических данных для замеров на объемах, близких к боевым. Схемы баз должны быть созданы
+ * миграциями Flyway сервисов (достаточно один раз запустить main_server и stats_server).
+ * <pre>
+ * java -jar data_generator/target/data-generator.jar --seed=42 --now=2026-10-01 \
+ *     --main.url=jdbc:postgresql://localhost:6541/main-db?currentSchema=main_server --users=100000 \
+ *     --events=1000000 --stats.url=jdbc:postgresql://localhost:5433/stats-db?currentSchema=stats_server \
+ *     --hits=100000000
+ * </pre>
+ */
+@Slf4j
+public class DataGenerator {
+
+    public static void main(String[] args) throws SQLException {
+        GeneratorOptions options = GeneratorOptions.parse(args);
+        if (options.getMainUrl() == null && options.getStatsUrl() == null) {
+            throw new IllegalArgumentException("нужен хотя бы один из параметров --main.url, --stats.url");
+        }
+        log.info("DataGenerator: seed={}, now={}", options.getSeed(), options.getNow());
+        generate(options);
+    }
+
+    static void generate(GeneratorOptions options) throws SQLException {
+        long firstEventId = 1;
+        if (options.getMainUrl() != null) {
+            try (Connection connection = DriverManager.getConnection(options.getMainUrl(), options.getMainUser(),
+                    options.getMainPassword())) {
+                firstEventId = new MainDataGenerator(options).generate(connection);
+            }
+        }
+        if (options.getStatsUrl() != null) {
+            try (Connection connection = DriverManager.getConnection(options.getStatsUrl(), options.getStatsUser(),
+                    options.getStatsPassword())) {
+                new StatsDataGenerator(options, firstEventId).generate(connection);
+            }
+        }
+    }
+}
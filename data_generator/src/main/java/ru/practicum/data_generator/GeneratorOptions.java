@@ -0,0 +1,101 @@
+package ru.practicum.data_generator;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры генерации из аргументов вида --name=value. Без --main.url не генерируются данные main_server,
+ * без --stats.url - просмотры stats_server. Одинаковые seed, now и объемы дают одинаковые данные.
+ */
+@Getter
+public class GeneratorOptions {
+    private final long seed;
+    /**
+     * Момент "сейчас", от которого отсчитываются даты; по умолчанию начало текущего дня
+     */
+    private final LocalDateTime now;
+    private final int batchSize;
+
+    private final String mainUrl;
+    private final String mainUser;
+    private final String mainPassword;
+    private final int users;
+    private final int categories;
+    private final int events;
+    private final double requestsPerEvent;
+    private final double commentsPerEvent;
+    private final int compilations;
+    private final int eventsPerCompilation;
+    /**
+     * Глубина истории: события создаются, а просмотры приходятся на последние days дней
+     */
+    private final int days;
+
+    private final String statsUrl;
+    private final String statsUser;
+    private final String statsPassword;
+    private final long hits;
+    private final int visitors;
+    private final double zipfExponent;
+    private final String app;
+
+    private GeneratorOptions(Map<String, String> values) {
+        seed = Long.parseLong(take(values, "seed", "42"));
+        now = LocalDate.parse(take(values, "now", LocalDate.now().toString())).atStartOfDay();
+        batchSize = Integer.parseInt(take(values, "batch-size", "5000"));
+
+        mainUrl = values.remove("main.url");
+        mainUser = take(values, "main.user", "postgres");
+        mainPassword = take(values, "main.password", "postgres");
+        users = Integer.parseInt(take(values, "users", "100000"));
+        categories = Integer.parseInt(take(values, "categories", "50"));
+        events = Integer.parseInt(take(values, "events", "1000000"));
+        requestsPerEvent = Double.parseDouble(take(values, "requests-per-event", "5"));
+        commentsPerEvent = Double.parseDouble(take(values, "comments-per-event", "2"));
+        compilations = Integer.parseInt(take(values, "compilations", "1000"));
+        eventsPerCompilation = Integer.parseInt(take(values, "events-per-compilation", "10"));
+        days = Integer.parseInt(take(values, "days", "180"));
+
+        statsUrl = values.remove("stats.url");
+        statsUser = take(values, "stats.user", "postgres");
+        statsPassword = take(values, "stats.password", "postgres");
+        hits = Long.parseLong(take(values, "hits", "10000000"));
+        visitors = Integer.parseInt(take(values, "visitors", "1000000"));
+        zipfExponent = Double.parseDouble(take(values, "zipf-exponent", "1.1"));
+        app = take(values, "app", "ewm-main-service");
+
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("неизвестные параметры: " + values.keySet());
+        }
+        if (users < 2 || categories < 1 || events < 1 || days < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("users >= 2, categories, events, days и batch-size >= 1");
+        }
+        if (visitors < 1 || visitors > StatsDataGenerator.MAX_VISITORS) {
+            throw new IllegalArgumentException("visitors должно быть от 1 до " + StatsDataGenerator.MAX_VISITORS);
+        }
+    }
+
+    /**
+     * @param args аргументы вида --name=value
+     */
+    public static GeneratorOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("аргумент должен иметь вид --name=value: " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new GeneratorOptions(values);
+    }
+
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value == null ? defaultValue : value;
+    }
+}
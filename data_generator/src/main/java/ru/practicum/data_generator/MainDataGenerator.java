@@ -0,0 +1,294 @@
+package ru.practicum.data_generator;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Данные main_server: пользователи, категории, места, события, заявки на участие, комментарии и подборки.
+ * Популярность категорий и активность инициаторов распределены по Зипфу, даты событий тяготеют к вечерам
+ * и выходным. id задаются явно, начиная с max(id) + 1 каждой таблицы, после загрузки счетчики identity
+ * сдвигаются за последний id, поэтому сервер продолжает создавать записи без конфликтов.
+ */
+@Slf4j
+public class MainDataGenerator {
+    private static final double PUBLISHED_SHARE = 0.8;
+    private static final double PENDING_SHARE = 0.12;
+    private static final double FREE_SHARE = 0.4;
+    private static final double PINNED_SHARE = 0.1;
+
+    private final GeneratorOptions options;
+    private final ZipfDistribution categoryPopularity;
+    private final ZipfDistribution initiatorActivity;
+    private long userBase;
+    private long categoryBase;
+    private long locationBase;
+    private long eventBase;
+    private long requestBase;
+    private long commentBase;
+    private long compilationBase;
+
+    public MainDataGenerator(GeneratorOptions options) {
+        this.options = options;
+        this.categoryPopularity = new ZipfDistribution(options.getCategories(), 1.0);
+        this.initiatorActivity = new ZipfDistribution(options.getUsers(), options.getZipfExponent());
+    }
+
+    /**
+     * @return id первого сгенерированного события
+     */
+    public long generate(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        userBase = maxId(connection, "users");
+        categoryBase = maxId(connection, "categories");
+        locationBase = maxId(connection, "locations");
+        eventBase = maxId(connection, "events");
+        requestBase = maxId(connection, "requests");
+        commentBase = maxId(connection, "comments");
+        compilationBase = maxId(connection, "compilations");
+
+        load(connection, "users", List.of("id", "name", "email"), writer -> {
+            for (int i = 1; i <= options.getUsers(); i++) {
+                writer.write(userBase + i, "Пользователь " + (userBase + i), "user" + (userBase + i) + "@example.com");
+            }
+        });
+        load(connection, "categories", List.of("id", "name", "updated_on"), writer -> {
+            for (int i = 1; i <= options.getCategories(); i++) {
+                writer.write(categoryBase + i, "Категория " + (categoryBase + i), options.getNow());
+            }
+        });
+        load(connection, "locations", List.of("id", "lat", "lon"), writer -> {
+            for (int i = 1; i <= options.getEvents(); i++) {
+                SplittableRandom random = Seeds.random(options.getSeed(), Seeds.LOCATIONS, i);
+                writer.write(locationBase + i, 41 + random.nextInt(30), 27 + random.nextInt(130));
+            }
+        });
+        load(connection, "events", List.of("id", "annotation", "category_id", "created_on", "description",
+                "event_date", "initiator_id", "location_id", "paid", "participant_limit", "confirmed_requests",
+                "published_on", "request_moderation", "state", "title", "updated_on"), writer -> {
+            for (int i = 1; i <= options.getEvents(); i++) {
+                EventRow event = event(i);
+                long confirmed = requests(event).stream().filter(r -> "CONFIRMED".equals(r.getStatus())).count();
+                writer.write(event.getId(), event.getAnnotation(), event.getCategoryId(), event.getCreatedOn(),
+                        event.getDescription(), event.getEventDate(), event.getInitiatorId(), locationBase + i,
+                        event.isPaid(), event.getParticipantLimit(), confirmed, event.getPublishedOn(),
+                        event.isRequestModeration(), event.getState(), event.getTitle(),
+                        event.getPublishedOn() == null ? event.getCreatedOn() : event.getPublishedOn());
+            }
+        });
+        long[] requestId = {requestBase};
+        load(connection, "requests", List.of("id", "event_id", "requester_id", "created", "status"), writer -> {
+            for (int i = 1; i <= options.getEvents(); i++) {
+                for (RequestRow request : requests(event(i))) {
+                    writer.write(++requestId[0], request.getEventId(), request.getRequesterId(),
+                            request.getCreated(), request.getStatus());
+                }
+            }
+        });
+        long[] commentId = {commentBase};
+        load(connection, "comments", List.of("id", "text", "state", "event_id", "author_id", "created"), writer -> {
+            for (int i = 1; i <= options.getEvents(); i++) {
+                EventRow event = event(i);
+                if (event.getPublishedOn() == null) {
+                    continue;
+                }
+                SplittableRandom random = Seeds.random(options.getSeed(), Seeds.COMMENTS, i);
+                int comments = geometric(random, options.getCommentsPerEvent());
+                for (int c = 0; c < comments; c++) {
+                    double state = random.nextDouble();
+                    writer.write(++commentId[0], Texts.sentence(random, 3, 30),
+                            state < 0.8 ? "APPROVED" : state < 0.95 ? "NEW" : "REJECTED", event.getId(),
+                            userBase + 1 + random.nextInt(options.getUsers()),
+                            between(random, event.getPublishedOn(), options.getNow()));
+                }
+            }
+        });
+        load(connection, "compilations", List.of("id", "title", "pinned", "updated_on"), writer -> {
+            for (int i = 1; i <= options.getCompilations(); i++) {
+                SplittableRandom random = Seeds.random(options.getSeed(), Seeds.COMPILATIONS, i);
+                writer.write(compilationBase + i, "Подборка: " + Texts.title(random),
+                        random.nextDouble() < PINNED_SHARE, options.getNow());
+            }
+        });
+        load(connection, "compilations_events", List.of("compilation_id", "event_id"), writer -> {
+            int size = Math.min(options.getEventsPerCompilation(), options.getEvents());
+            for (int i = 1; i <= options.getCompilations(); i++) {
+                SplittableRandom random = Seeds.random(options.getSeed(), Seeds.COMPILATION_EVENTS, i);
+                Set<Long> events = new HashSet<>();
+                while (events.size() < size) {
+                    long eventId = eventBase + 1 + random.nextInt(options.getEvents());
+                    if (events.add(eventId)) {
+                        writer.write(compilationBase + i, eventId);
+                    }
+                }
+            }
+        });
+
+        for (String table : List.of("users", "categories", "locations", "events", "requests", "comments",
+                "compilations")) {
+            restartIdentity(connection, table);
+        }
+        connection.commit();
+        return eventBase + 1;
+    }
+
+    EventRow event(int index) {
+        SplittableRandom random = Seeds.random(options.getSeed(), Seeds.EVENTS, index);
+        LocalDateTime createdOn = options.getNow().minusSeconds(1 + random.nextLong(options.getDays() * 86400L));
+        double stateRoll = random.nextDouble();
+        String state = stateRoll < PUBLISHED_SHARE ? "PUBLISHED"
+                : stateRoll < PUBLISHED_SHARE + PENDING_SHARE ? "PENDING" : "CANCELED";
+        LocalDateTime publishedOn = "PUBLISHED".equals(state)
+                ? createdOn.plusMinutes(60 + random.nextInt(47 * 60)) : null;
+
+        LocalDateTime eventDay = createdOn.toLocalDate().plusDays(1 + (long) (-Math.log(1 - random.nextDouble()) * 30))
+                .atStartOfDay();
+        if (random.nextDouble() < 0.4) {
+            eventDay = eventDay.with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY));
+        }
+        LocalDateTime eventDate = random.nextDouble() < 0.7
+                ? eventDay.plusMinutes(18 * 60 + 30L * random.nextInt(8))
+                : eventDay.plusMinutes(10 * 60 + 30L * random.nextInt(14));
+        if (publishedOn != null && !eventDate.isAfter(publishedOn.plusHours(1))) {
+            eventDate = publishedOn.plusHours(2 + random.nextInt(72));
+        }
+
+        long participantLimit = random.nextDouble() < FREE_SHARE ? 0 : 10 + random.nextInt(491);
+        return new EventRow(index, eventBase + index,
+                Texts.title(random),
+                Texts.sentence(random, 5, 12),
+                Texts.sentence(random, 15, 60),
+                categoryBase + categoryPopularity.sample(random),
+                userBase + initiatorActivity.sample(random),
+                createdOn, publishedOn, eventDate, state,
+                random.nextDouble() < 0.3,
+                participantLimit,
+                random.nextDouble() < 0.6);
+    }
+
+    /**
+     * Заявки события: только к опубликованным событиям, от разных пользователей, не от инициатора.
+     * Без модерации или без лимита заявки подтверждаются сразу, подтвержденных не больше лимита.
+     */
+    List<RequestRow> requests(EventRow event) {
+        List<RequestRow> requests = new ArrayList<>();
+        if (event.getPublishedOn() == null) {
+            return requests;
+        }
+        SplittableRandom random = Seeds.random(options.getSeed(), Seeds.REQUESTS, event.getIndex());
+        int count = Math.min(geometric(random, options.getRequestsPerEvent()), options.getUsers() - 1);
+        Set<Long> requesters = new HashSet<>();
+        long confirmed = 0;
+        LocalDateTime until = event.getEventDate().isBefore(options.getNow()) ? event.getEventDate()
+                : options.getNow();
+        for (int r = 0; r < count; r++) {
+            long requester = userBase + 1 + random.nextInt(options.getUsers());
+            if (requester == event.getInitiatorId() || !requesters.add(requester)) {
+                continue;
+            }
+            String status;
+            if (event.getParticipantLimit() > 0 && confirmed >= event.getParticipantLimit()) {
+                status = "REJECTED";
+            } else if (!event.isRequestModeration() || event.getParticipantLimit() == 0) {
+                status = "CONFIRMED";
+            } else {
+                double roll = random.nextDouble();
+                status = roll < 0.6 ? "CONFIRMED" : roll < 0.85 ? "PENDING" : roll < 0.95 ? "REJECTED" : "CANCELED";
+            }
+            if ("CONFIRMED".equals(status)) {
+                confirmed++;
+            }
+            requests.add(new RequestRow(event.getId(), requester, between(random, event.getPublishedOn(), until),
+                    status));
+        }
+        return requests;
+    }
+
+    private void load(Connection connection, String table, List<String> columns, TableLoader loader)
+            throws SQLException {
+        long start = System.nanoTime();
+        long rows;
+        try (RowWriter writer = RowWriter.open(connection, table, columns, options.getBatchSize())) {
+            loader.load(writer);
+            rows = writer.getRows();
+        }
+        connection.commit();
+        log.info("MainDataGenerator: {} - {} строк за {} мс", table, rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Количество с геометрическим распределением и заданным средним: у большинства событий мало заявок
+     * и комментариев, у немногих - много
+     */
+    static int geometric(SplittableRandom random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double p = 1 / (1 + mean);
+        return (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private static LocalDateTime between(SplittableRandom random, LocalDateTime from, LocalDateTime to) {
+        long seconds = Duration.between(from, to).getSeconds();
+        return seconds <= 0 ? from : from.plusSeconds(random.nextLong(seconds));
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void restartIdentity(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " +
+                    (maxId(connection, table) + 1));
+        }
+    }
+
+    @FunctionalInterface
+    private interface TableLoader {
+        void load(RowWriter writer) throws SQLException;
+    }
+
+    @Value
+    static class EventRow {
+        int index;
+        long id;
+        String title;
+        String annotation;
+        String description;
+        long categoryId;
+        long initiatorId;
+        LocalDateTime createdOn;
+        LocalDateTime publishedOn;
+        LocalDateTime eventDate;
+        String state;
+        boolean paid;
+        long participantLimit;
+        boolean requestModeration;
+    }
+
+    @Value
+    static class RequestRow {
+        long eventId;
+        long requesterId;
+        LocalDateTime created;
+        String status;
+    }
+}
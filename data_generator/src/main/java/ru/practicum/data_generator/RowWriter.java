@@ -0,0 +1,35 @@
+package ru.practicum.data_generator;
+
+import org.postgresql.core.BaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Потоковая запись строк в таблицу. В PostgreSQL строки уходят через COPY FROM STDIN, в остальных базах -
+ * пачками JDBC batch insert. close() дописывает остаток, транзакцию фиксирует вызывающий код.
+ */
+public interface RowWriter extends AutoCloseable {
+
+    /**
+     * @param values значения колонок в порядке columns: String, Number, Boolean, LocalDateTime или null
+     */
+    void write(Object... values) throws SQLException;
+
+    /**
+     * @return количество записанных строк
+     */
+    long getRows();
+
+    @Override
+    void close() throws SQLException;
+
+    static RowWriter open(Connection connection, String table, List<String> columns, int batchSize)
+            throws SQLException {
+        if (connection.isWrapperFor(BaseConnection.class)) {
+            return new CopyRowWriter(connection.unwrap(BaseConnection.class), table, columns);
+        }
+        return new BatchRowWriter(connection, table, columns, batchSize);
+    }
+}
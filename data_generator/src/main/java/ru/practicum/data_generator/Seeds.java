@@ -0,0 +1,36 @@
+package ru.practicum.data_generator;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.SplittableRandom;
+
+/**
+ * Независимые генераторы случайных чисел для каждой сущности: значения строки зависят только от seed,
+ * потока (таблицы) и номера строки, поэтому строку можно сгенерировать повторно, например заявки
+ * события при записи самого события и при записи таблицы заявок.
+ */
+@UtilityClass
+class Seeds {
+    static final int USERS = 1;
+    static final int EVENTS = 2;
+    static final int REQUESTS = 3;
+    static final int COMMENTS = 4;
+    static final int COMPILATIONS = 5;
+    static final int HITS = 6;
+    static final int URIS = 7;
+    static final int LOCATIONS = 8;
+    static final int COMPILATION_EVENTS = 9;
+
+    static SplittableRandom random(long seed, int stream, long index) {
+        return new SplittableRandom(mix(mix(seed ^ ((long) stream << 56)) + index));
+    }
+
+    /**
+     * Финализатор SplitMix64
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
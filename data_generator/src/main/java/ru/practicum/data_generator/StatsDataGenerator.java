@@ -0,0 +1,98 @@
+package ru.practicum.data_generator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Сырые просмотры stats_server в таблицу stats. Адреса /events/{id} событий main_server выбираются по Зипфу:
+ * ранги перемешаны, чтобы популярность не зависела от id. Просмотры распределены по последним days дням
+ * с суточным профилем, ip берутся из пула visitors посетителей. Просмотры генерируются кусками
+ * по CHUNK_SIZE, каждый кусок со своим генератором случайных чисел.
+ * Бакеты stats_rollups и скетчи stats_sketches не заполняются: после загрузки их пересчитывает
+ * POST /rollups/rebuild stats_server.
+ */
+@Slf4j
+public class StatsDataGenerator {
+    /**
+     * ip посетителя - адрес из 10.0.0.0/8
+     */
+    public static final int MAX_VISITORS = 1 << 24;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final double LIST_SHARE = 0.05;
+    private static final int[] HOUR_WEIGHTS = {2, 1, 1, 1, 1, 2, 3, 5, 7, 8, 8, 8, 9, 9, 8, 8, 9, 10, 12, 13, 12, 10,
+            7, 4};
+
+    private final GeneratorOptions options;
+    private final long firstEventId;
+    private final int[] eventByRank;
+    private final ZipfDistribution popularity;
+    private final int[] hourByWeight;
+
+    /**
+     * @param firstEventId id первого события, адреса - /events/{firstEventId}..{firstEventId + events - 1}
+     */
+    public StatsDataGenerator(GeneratorOptions options, long firstEventId) {
+        this.options = options;
+        this.firstEventId = firstEventId;
+        this.popularity = new ZipfDistribution(options.getEvents(), options.getZipfExponent());
+        this.eventByRank = new int[options.getEvents()];
+        SplittableRandom random = Seeds.random(options.getSeed(), Seeds.URIS, 0);
+        for (int i = 0; i < eventByRank.length; i++) {
+            int j = random.nextInt(i + 1);
+            eventByRank[i] = eventByRank[j];
+            eventByRank[j] = i;
+        }
+        int total = 0;
+        for (int weight : HOUR_WEIGHTS) {
+            total += weight;
+        }
+        this.hourByWeight = new int[total];
+        for (int hour = 0, position = 0; hour < HOUR_WEIGHTS.length; hour++) {
+            for (int w = 0; w < HOUR_WEIGHTS[hour]; w++) {
+                hourByWeight[position++] = hour;
+            }
+        }
+    }
+
+    public void generate(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        LocalDateTime from = options.getNow().minusDays(options.getDays());
+        try (RowWriter writer = RowWriter.open(connection, "stats", List.of("app", "uri", "ip", "timestamp"),
+                options.getBatchSize())) {
+            for (long chunk = 0; chunk * CHUNK_SIZE < options.getHits(); chunk++) {
+                SplittableRandom random = Seeds.random(options.getSeed(), Seeds.HITS, chunk);
+                long size = Math.min(CHUNK_SIZE, options.getHits() - chunk * CHUNK_SIZE);
+                for (long i = 0; i < size; i++) {
+                    writer.write(options.getApp(), uri(random), ip(random.nextInt(options.getVisitors())),
+                            from.plusDays(random.nextInt(options.getDays()))
+                                    .plusHours(hourByWeight[random.nextInt(hourByWeight.length)])
+                                    .plusSeconds(random.nextInt(3600)));
+                }
+                log.info("StatsDataGenerator: stats - {} строк", chunk * CHUNK_SIZE + size);
+            }
+        }
+        connection.commit();
+        log.info("StatsDataGenerator: stats - {} строк за {} мс; пересчет статистики: " +
+                        "POST /rollups/rebuild?start={} 00:00:00&end={} 23:59:59", options.getHits(),
+                (System.nanoTime() - start) / 1_000_000, from.toLocalDate(),
+                options.getNow().toLocalDate().minusDays(1));
+    }
+
+    private String uri(SplittableRandom random) {
+        if (random.nextDouble() < LIST_SHARE) {
+            return "/events";
+        }
+        return "/events/" + (firstEventId + eventByRank[popularity.sample(random) - 1]);
+    }
+
+    private static String ip(int visitor) {
+        return "10." + (visitor >>> 16) + "." + ((visitor >>> 8) & 0xFF) + "." + (visitor & 0xFF);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.data_generator;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.SplittableRandom;
+
+/**
+ * Тексты событий и комментариев из словаря: достаточно разнообразные для полнотекстового поиска
+ * и укладывающиеся в ограничения длины полей
+ */
+@UtilityClass
+class Texts {
+    private static final String[] KINDS = {"Концерт", "Выставка", "Лекция", "Мастер-класс", "Фестиваль",
+            "Спектакль", "Экскурсия", "Турнир", "Кинопоказ", "Ярмарка", "Квиз", "Забег"};
+    private static final String[] ADJECTIVES = {"большой", "джазовый", "вечерний", "семейный", "летний",
+            "городской", "камерный", "открытый", "осенний", "ночной", "детский", "уличный"};
+    private static final String[] WORDS = {"музыка", "искусство", "парк", "набережная", "история", "наука",
+            "кино", "театр", "город", "друзья", "вход", "билеты", "программа", "гости", "сцена", "площадка",
+            "встреча", "мероприятие", "участники", "выходные", "прогулка", "фотография", "книги", "спорт",
+            "еда", "живой", "звук", "атмосфера", "лучшие", "впервые", "бесплатно", "регистрация"};
+
+    static String title(SplittableRandom random) {
+        return pick(random, KINDS) + " " + pick(random, ADJECTIVES) + " " + pick(random, WORDS);
+    }
+
+    /**
+     * @return от minWords до maxWords слов словаря
+     */
+    static String sentence(SplittableRandom random, int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder(pick(random, KINDS));
+        for (int i = 1; i < words; i++) {
+            text.append(' ').append(pick(random, i % 3 == 0 ? ADJECTIVES : WORDS));
+        }
+        return text.append('.').toString();
+    }
+
+    private static String pick(SplittableRandom random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.data_generator;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DataGeneratorTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final List<String> MAIN_TABLES = List.of("users", "categories", "locations", "events",
+            "requests", "comments", "compilations", "compilations_events");
+
+    @Test
+    void sameSeedGivesSameData() throws SQLException {
+        String[] first = generate(7);
+        String[] second = generate(7);
+        String[] other = generate(8);
+
+        for (String table : MAIN_TABLES) {
+            assertEquals(dump(first[0], table), dump(second[0], table), table);
+        }
+        assertEquals(dump(first[1], "stats"), dump(second[1], "stats"));
+        assertNotEquals(dump(first[0], "events"), dump(other[0], "events"));
+        assertNotEquals(dump(first[1], "stats"), dump(other[1], "stats"));
+    }
+
+    @Test
+    void generatedDataIsConsistent() throws SQLException {
+        String[] urls = generate(42);
+
+        assertEquals(0, count(urls[0], "SELECT COUNT(*) FROM events e WHERE e.confirmed_requests <> " +
+                "(SELECT COUNT(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED')"));
+        assertEquals(0, count(urls[0], "SELECT COUNT(*) FROM requests r JOIN events e ON e.id = r.event_id " +
+                "WHERE r.requester_id = e.initiator_id OR e.state <> 'PUBLISHED'"));
+        assertEquals(0, count(urls[0], "SELECT COUNT(*) FROM events WHERE state = 'PUBLISHED' " +
+                "AND event_date <= published_on"));
+        assertEquals(0, count(urls[1], "SELECT COUNT(*) FROM stats WHERE uri <> '/events' " +
+                "AND CAST(SUBSTRING(uri, 9) AS BIGINT) NOT BETWEEN 1 AND 200"));
+        assertEquals(20_000, count(urls[1], "SELECT COUNT(*) FROM stats"));
+        try (Connection connection = DriverManager.getConnection(urls[0]);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO users (name, email) VALUES ('new', 'new@example.com')");
+            assertEquals(51, count(urls[0], "SELECT id FROM users WHERE name = 'new'"));
+        }
+    }
+
+    @Test
+    void zipfFavorsTopRanks() {
+        ZipfDistribution zipf = new ZipfDistribution(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[1001];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts[zipf.sample(random)]++;
+        }
+        double harmonic = 0;
+        for (int k = 1; k <= 1000; k++) {
+            harmonic += 1.0 / k;
+        }
+        assertEquals(samples / harmonic, counts[1], samples * 0.005);
+        assertEquals(samples / harmonic / 10, counts[10], samples * 0.002);
+    }
+
+    /**
+     * @return адреса баз main_server и stats_server со сгенерированными данными
+     */
+    private static String[] generate(long seed) throws SQLException {
+        int database = DATABASES.incrementAndGet();
+        String mainUrl = "jdbc:h2:mem:generator_main_" + database + ";DB_CLOSE_DELAY=-1";
+        String statsUrl = "jdbc:h2:mem:generator_stats_" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+        migrate(mainUrl, "main_server", "flyway_schema_history");
+        migrate(statsUrl, "stats_server", "stats_schema_history");
+        DataGenerator.generate(GeneratorOptions.parse("--seed=" + seed, "--now=2026-10-01", "--batch-size=100",
+                "--main.url=" + mainUrl, "--main.user=", "--main.password=", "--users=50", "--categories=5",
+                "--events=200", "--compilations=10", "--days=30",
+                "--stats.url=" + statsUrl, "--stats.user=", "--stats.password=", "--hits=20000", "--visitors=500"));
+        return new String[]{mainUrl, statsUrl};
+    }
+
+    private static void migrate(String url, String module, String table) {
+        Flyway.configure()
+                .dataSource(url, "", "")
+                .table(table)
+                .locations("filesystem:../" + module + "/src/main/resources/db/migration/common",
+                        "filesystem:../" + module + "/src/main/resources/db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    private static String dump(String url, String table) throws SQLException {
+        StringBuilder dump = new StringBuilder();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + table + " ORDER BY 1, 2")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            while (rs.next()) {
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    dump.append(rs.getObject(i)).append('|');
+                }
+                dump.append('\n');
+            }
+        }
+        return dump.toString();
+    }
+
+    private static long count(String url, String query) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(query)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ru.practicum.flight_recorder;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Непрерывная запись JDK Flight Recorder с настройками default (накладные расходы меньше 1%) и собственными
+ * событиями сервиса. Запись ограничена по возрасту и размеру: на диске хранится не больше
+ * jfr.continuous.max-size последних данных за jfr.continuous.max-age, старые куски удаляются.
+ * События с переменными окружения, системными свойствами, аргументами JVM и процессами машины не пишутся:
+ * в них попадают пароли из окружения.
+ * Управляется actuator-эндпоинтами jfr и jfrdump или локально через jcmd JFR.dump name=jfr.continuous.name.
+ */
+@Slf4j
+public class ContinuousRecording {
+    private static final List<String> SENSITIVE_EVENTS = List.of("jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.SystemProcess");
+
+    private final String name;
+    private final Duration defaultMaxAge;
+    private final DataSize defaultMaxSize;
+    private final boolean startOnStartup;
+    private Recording recording;
+    private Path lastDump;
+
+    public ContinuousRecording(@Value("${jfr.continuous.name:continuous}") String name,
+                               @Value("${jfr.continuous.max-age:1h}") Duration defaultMaxAge,
+                               @Value("${jfr.continuous.max-size:100MB}") DataSize defaultMaxSize,
+                               @Value("${jfr.continuous.start-on-startup:false}") boolean startOnStartup) {
+        this.name = name;
+        this.defaultMaxAge = defaultMaxAge;
+        this.defaultMaxSize = defaultMaxSize;
+        this.startOnStartup = startOnStartup;
+    }
+
+    @PostConstruct
+    void startOnStartup() {
+        if (startOnStartup) {
+            start(null, null);
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * @param maxAge  возраст хранимых данных или null для jfr.continuous.max-age
+     * @param maxSize размер хранимых данных или null для jfr.continuous.max-size
+     * @throws IllegalStateException если запись уже идет
+     */
+    public synchronized void start(Duration maxAge, DataSize maxSize) {
+        if (isRunning()) {
+            throw new IllegalStateException("запись JFR уже идет");
+        }
+        closeRecording();
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("не удалось прочитать настройки JFR default", e);
+        }
+        SENSITIVE_EVENTS.forEach(recording::disable);
+        recording.setName(name);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge == null ? defaultMaxAge : maxAge);
+        recording.setMaxSize((maxSize == null ? defaultMaxSize : maxSize).toBytes());
+        recording.start();
+        log.info("ContinuousRecording: запись JFR {} начата, maxAge={}, maxSize={}", name, recording.getMaxAge(),
+                recording.getMaxSize());
+    }
+
+    /**
+     * Останавливает запись, записанные данные доступны для выгрузки до следующего start.
+     */
+    public synchronized void stop() {
+        if (isRunning()) {
+            recording.stop();
+            log.info("ContinuousRecording: запись JFR {} остановлена, size={}", name, recording.getSize());
+        }
+    }
+
+    /**
+     * Выгружает записанные данные во временный файл, не останавливая запись. Хранится только последняя
+     * выгрузка: предыдущий файл, если его не удалили после отправки, удаляется здесь и при остановке.
+     *
+     * @return файл .jfr или null, если записи не было
+     */
+    public synchronized Path dump() {
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            return null;
+        }
+        deleteLastDump();
+        try {
+            lastDump = Files.createTempFile(name + "-", ".jfr");
+            recording.dump(lastDump);
+            log.info("ContinuousRecording: запись JFR выгружена в {}, {} байт", lastDump, Files.size(lastDump));
+            return lastDump;
+        } catch (IOException e) {
+            deleteLastDump();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", RecordingState.NEW);
+            return status;
+        }
+        status.put("name", recording.getName());
+        status.put("state", recording.getState());
+        status.put("startTime", recording.getStartTime());
+        status.put("stopTime", recording.getStopTime());
+        status.put("maxAge", recording.getMaxAge());
+        status.put("maxSize", recording.getMaxSize());
+        status.put("size", recording.getSize());
+        return status;
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        closeRecording();
+        deleteLastDump();
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private void deleteLastDump() {
+        if (lastDump == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(lastDump);
+        } catch (IOException e) {
+            log.warn("ContinuousRecording: не удалось удалить выгрузку {}: {}", lastDump, e.getMessage());
+        }
+        lastDump = null;
+    }
+}
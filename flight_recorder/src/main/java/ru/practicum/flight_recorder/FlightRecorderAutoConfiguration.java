@@ -0,0 +1,13 @@
+package ru.practicum.flight_recorder;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Непрерывная запись JFR и actuator-эндпоинты jfr, jfrdump для сервисов, подключивших модуль.
+ * Имя записи и временных файлов выгрузки - jfr.continuous.name.
+ */
+@AutoConfiguration
+@Import({ContinuousRecording.class, FlightRecorderEndpoint.class, FlightRecordingDumpEndpoint.class})
+public class FlightRecorderAutoConfiguration {
+}
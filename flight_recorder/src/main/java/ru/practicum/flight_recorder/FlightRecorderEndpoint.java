@@ -0,0 +1,50 @@
+package ru.practicum.flight_recorder;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Управление непрерывной записью JFR:
+ * GET /actuator/jfr - состояние, POST /actuator/jfr {"maxAge": "30m", "maxSize": "50MB"} - начать запись
+ * ({} - с jfr.continuous.max-age и jfr.continuous.max-size),
+ * DELETE /actuator/jfr - остановить. Выгрузка записи - GET /actuator/jfrdump.
+ * Эндпоинт создается, только если он открыт в management.endpoints.web.exposure.
+ */
+@WebEndpoint(id = "jfr")
+@ConditionalOnAvailableEndpoint(endpoint = FlightRecorderEndpoint.class)
+public class FlightRecorderEndpoint {
+    private final ContinuousRecording recording;
+
+    public FlightRecorderEndpoint(ContinuousRecording recording) {
+        this.recording = recording;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return recording.status();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable Duration maxAge, @Nullable DataSize maxSize) {
+        if (recording.isRunning()) {
+            return new WebEndpointResponse<>(recording.status(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        recording.start(maxAge, maxSize);
+        return new WebEndpointResponse<>(recording.status());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        recording.stop();
+        return recording.status();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.flight_recorder;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * GET /actuator/jfrdump - файл .jfr с данными непрерывной записи (jdk.jfr / JDK Mission Control).
+ * Запись при этом не останавливается. 404, если запись не запускалась.
+ * Эндпоинт создается, только если он открыт в management.endpoints.web.exposure.
+ */
+@WebEndpoint(id = "jfrdump")
+@ConditionalOnAvailableEndpoint(endpoint = FlightRecordingDumpEndpoint.class)
+public class FlightRecordingDumpEndpoint {
+    private final ContinuousRecording recording;
+
+    public FlightRecordingDumpEndpoint(ContinuousRecording recording) {
+        this.recording = recording;
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump() {
+        Path file = recording.dump();
+        if (file == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+
+    /**
+     * Временный файл выгрузки, удаляется после отправки клиенту. Если клиент отключился раньше,
+     * файл удалит следующая выгрузка или остановка сервиса (ContinuousRecording.dump).
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+        private final Path file;
+
+        TemporaryFileResource(Path file) {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.main_server.client;
+
+/**
+ * Поведение очереди просмотров StatisticClient при переполнении: DROP, SEND_SYNC
+ */
+public enum HitOverflowPolicy {
+    DROP, // просмотр отбрасывается и учитывается в метрике stats.client.hits{outcome=dropped}
+    SEND_SYNC // просмотр отправляется синхронно в потоке запроса
+}
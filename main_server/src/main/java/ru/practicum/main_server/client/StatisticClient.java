@@ -1,6 +1,20 @@
 package ru.practicum.main_server.client;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -9,44 +23,240 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.main_server.exception.InternalServerErrorException;
+import ru.practicum.main_server.exception.StatsUnavailableException;
+import ru.practicum.main_server.jfr.EventEnrichmentEvent;
+import ru.practicum.main_server.jfr.StatsRequestEvent;
 import ru.practicum.main_server.model.Event;
 import ru.practicum.main_server.model.dto.EndpointHitDto;
 import ru.practicum.main_server.model.dto.ViewStats;
-import ru.practicum.main_server.repository.EventRepository;
 
+import javax.annotation.PreDestroy;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class StatisticClient {
+    private static final String EVENT_URI_PREFIX = "/events/";
+
     protected final RestTemplate rest;
-    private final EventRepository eventRepository;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final StatisticClientProperties properties;
+    private final BlockingQueue<EndpointHitDto> hitQueue;
+    private final ScheduledExecutorService hitSender;
+    private final ExecutorService viewsLookup;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final MeterRegistry meterRegistry;
+    private final Counter failedHits;
+    private final Counter queuedHits;
+    private final Counter sentSyncHits;
+    private final Counter droppedHits;
+    private final LoadingCache<Long, Integer> viewsCache;
+    private final Cache<Long, Integer> lastKnownViews;
+    private final Cache<Long, LocalDateTime> eventCreatedOn;
+    private final StatsCircuitBreaker circuitBreaker;
 
     @Autowired
     public StatisticClient(@Value("${STATS_SERVER_URL}") String serverUrl, RestTemplateBuilder builder,
-                           EventRepository eventRepository) {
-        this.eventRepository = eventRepository;
+                           StatisticClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
         rest = builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(createHttpClient(properties.getHttp())))
+                .build();
+        this.circuitBreaker = new StatsCircuitBreaker(properties.getCircuitBreaker().getFailureThreshold(),
+                properties.getCircuitBreaker().getOpenDuration(), Clock.systemUTC());
+        Gauge.builder("stats.client.circuit.open", circuitBreaker,
+                        cb -> cb.getState() == StatsCircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+        this.hitQueue = new ArrayBlockingQueue<>(properties.getHits().getQueueCapacity());
+        this.failedHits = meterRegistry.counter("stats.client.hits.failed");
+        this.queuedHits = meterRegistry.counter("stats.client.hits", "outcome", "queued");
+        this.sentSyncHits = meterRegistry.counter("stats.client.hits", "outcome", "sent_sync");
+        this.droppedHits = meterRegistry.counter("stats.client.hits", "outcome", "dropped");
+        Gauge.builder("stats.client.hits.queue.size", hitQueue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.hitSender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-hit-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushIntervalMs = properties.getHits().getFlushInterval().toMillis();
+        hitSender.scheduleWithFixedDelay(this::flushHits, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        StatisticClientProperties.Views views = properties.getViews();
+        this.viewsCache = Caffeine.newBuilder()
+                .maximumSize(views.getCacheMaxSize())
+                .expireAfterWrite(views.getCacheExpireAfterWrite())
+                .refreshAfterWrite(views.getCacheRefreshAfterWrite())
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Integer load(Long eventId) {
+                        return loadViews(List.of(eventId)).get(eventId);
+                    }
+
+                    @Override
+                    public Map<Long, Integer> loadAll(Iterable<? extends Long> eventIds) {
+                        List<Long> ids = new ArrayList<>();
+                        eventIds.forEach(ids::add);
+                        return loadViews(ids);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, viewsCache, "event-views");
+        this.lastKnownViews = Caffeine.newBuilder()
+                .maximumSize(views.getCacheMaxSize())
+                .build();
+        this.eventCreatedOn = Caffeine.newBuilder()
+                .maximumSize(views.getCacheMaxSize())
                 .build();
+        AtomicInteger lookupThreads = new AtomicInteger();
+        ThreadPoolExecutor lookupExecutor = new ThreadPoolExecutor(views.getLookupThreads(), views.getLookupThreads(),
+                1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(views.getLookupQueueCapacity()), r -> {
+                    Thread thread = new Thread(r, "stats-views-lookup-" + lookupThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        lookupExecutor.allowCoreThreadTimeOut(true);
+        this.viewsLookup = ExecutorServiceMetrics.monitor(meterRegistry, lookupExecutor, "stats-views-lookup");
     }
 
+    private static CloseableHttpClient createHttpClient(StatisticClientProperties.Http http) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(http.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnections());
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) http.getConnectTimeout().toMillis())
+                        .setSocketTimeout((int) http.getReadTimeout().toMillis())
+                        .setConnectionRequestTimeout((int) http.getConnectionRequestTimeout().toMillis())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Ставит просмотр в очередь на отправку в сервер статистики, не дожидаясь ответа.
+     * Очередь разбирается фоновым потоком пачками по stats.hits.flush-size.
+     *
+     * @param endpointHit просмотр
+     */
     public void createHit(EndpointHitDto endpointHit) {
-        rest.postForEntity("/hit", endpointHit, Object.class);
+        if (!hitQueue.offer(endpointHit)) {
+            if (properties.getHits().getOverflowPolicy() == HitOverflowPolicy.SEND_SYNC) {
+                sentSyncHits.increment();
+                sendHits(List.of(endpointHit));
+            } else {
+                droppedHits.increment();
+                log.warn(":::::StatisticClient: очередь просмотров переполнена, просмотр отброшен {}", endpointHit);
+            }
+            return;
+        }
+        queuedHits.increment();
+        if (hitQueue.size() >= properties.getHits().getFlushSize() && flushScheduled.compareAndSet(false, true)) {
+            try {
+                hitSender.execute(this::flushHits);
+            } catch (RejectedExecutionException e) {
+                // приложение останавливается: просмотр остается в очереди, ее разберет shutdown
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Останавливает фоновые потоки и отправляет оставшиеся в очереди просмотры. Очередь разбирается
+     * и тогда, когда фоновая отправка не завершилась за 5 секунд. Просмотры, которые остались в очереди
+     * из-за разомкнутого circuit breaker, отправляются последней попыткой в обход него.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        viewsLookup.shutdownNow();
+        hitSender.shutdown();
+        if (!hitSender.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn(":::::StatisticClient: фоновая отправка просмотров не завершилась, осталось {}", hitQueue.size());
+        }
+        flushHits();
+        flushRemainingHits();
+    }
+
+    private void flushHits() {
+        flushScheduled.set(false);
+        int flushSize = properties.getHits().getFlushSize();
+        List<EndpointHitDto> batch = new ArrayList<>(flushSize);
+        // пока circuit breaker разомкнут, просмотры копятся в очереди до stats.hits.queue-capacity
+        while (circuitBreaker.isCallPermitted() && hitQueue.drainTo(batch, flushSize) > 0) {
+            sendHits(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Отправляет остаток очереди без circuit breaker: после остановки очередь больше никто не разберет.
+     * После первой неудачной пачки сервер статистики не опрашивается, все оставшиеся просмотры
+     * считаются отброшенными.
+     */
+    private void flushRemainingHits() {
+        int flushSize = properties.getHits().getFlushSize();
+        List<EndpointHitDto> batch = new ArrayList<>(flushSize);
+        boolean available = true;
+        int dropped = 0;
+        while (hitQueue.drainTo(batch, flushSize) > 0) {
+            if (available) {
+                try {
+                    timed("send_hits", batch.size(), () -> rest.postForEntity("/hits", batch, Integer.class));
+                } catch (RestClientException e) {
+                    available = false;
+                    log.warn(":::::StatisticClient: последняя отправка просмотров не удалась: {}", e.getMessage());
+                }
+            }
+            if (!available) {
+                dropped += batch.size();
+            }
+            batch.clear();
+        }
+        if (dropped > 0) {
+            droppedHits.increment(dropped);
+            log.warn(":::::StatisticClient: при остановке отброшено {} просмотров", dropped);
+        }
+    }
+
+    private void sendHits(List<EndpointHitDto> hits) {
+        try {
+            timed("send_hits", hits.size(),
+                    () -> circuitBreaker.call(() -> rest.postForEntity("/hits", hits, Integer.class)));
+        } catch (StatsUnavailableException e) {
+            failedHits.increment(hits.size());
+            log.warn(":::::StatisticClient: не удалось отправить {} просмотров: {}", hits.size(), e.getMessage());
+        }
     }
 
     private List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique)
@@ -57,7 +267,7 @@ public class StatisticClient {
                                 StandardCharsets.UTF_8.toString()) +
                                 "&end=" + URLEncoder.encode(end.format(formatter),
                                 StandardCharsets.UTF_8.toString()) +
-                                "&uris=" + uris +
+                                "&uris=" + String.join(",", uris) +
                                 "&unique=" + unique,
                         HttpMethod.GET,
                         null,
@@ -69,64 +279,175 @@ public class StatisticClient {
     }
 
     /**
-     * Обращается к серверу статистики для получения кол-ва просмотров события
+     * Возвращает кол-во просмотров события из локального кэша. Повторные чтения в пределах
+     * stats.views.cache-refresh-after-write не обращаются к серверу статистики, после него значение
+     * обновляется асинхронно, пока запись не устарела. Если сервер статистики недоступен, возвращается
+     * последнее известное значение или null.
      *
-     * @param eventId айди события
+     * @param event событие, просмотры считаются с его createdOn
      * @return int - количество просмотров
      */
-    public Integer getViewsSingleEvent(long eventId) {
-        List<ViewStats> stats;
+    public Integer getViewsSingleEvent(Event event) {
+        rememberCreatedOn(event);
+        return getViews(event.getId());
+    }
+
+    private Integer getViews(long eventId) {
+        EventEnrichmentEvent event = EventEnrichmentEvent.start("views");
         try {
-            stats = getStats(
-                    eventRepository.getReferenceById(eventId).getCreatedOn(),
-                    LocalDateTime.now(),
-                    List.of("/events/" + eventId),
-                    false);
-        } catch (UnsupportedEncodingException e) {
-            throw new InternalServerErrorException("неудачная кодировка");
+            return viewsCache.get(eventId);
+        } catch (StatsUnavailableException e) {
+            log.warn(":::::StatisticClient: {}, просмотры события {} из последних известных", e.getMessage(), eventId);
+            return lastKnownViews.getIfPresent(eventId);
+        } finally {
+            event.finish(eventId);
         }
-        if (!stats.isEmpty()) {
-            log.info("::::stats={}", stats);
-            return stats.get(0).getHits();
-        }
-        return 0;
     }
 
     /**
-     * Обращается к серверу статистики для преобразования списка событий с полями views.
+     * Запускает чтение просмотров события (getViewsSingleEvent) в пуле stats.views.lookup-threads, чтобы
+     * вызывающий тем временем читал базу. Если пул и его очередь заняты, чтение выполняется в вызывающем потоке.
+     * Не дождавшись просмотров за stats.views.lookup-timeout от запуска, future завершается последним
+     * известным значением или null, а загрузка в кэш продолжается.
+     *
+     * @param event событие, просмотры считаются с его createdOn
+     * @return просмотры события
+     */
+    public CompletableFuture<Integer> getViewsSingleEventAsync(Event event) {
+        long eventId = event.getId();
+        rememberCreatedOn(event);
+        return CompletableFuture.supplyAsync(() -> getViews(eventId), viewsLookup)
+                .orTimeout(properties.getViews().getLookupTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    if (!(e instanceof TimeoutException)) {
+                        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                    }
+                    log.warn(":::::StatisticClient: просмотры события {} не получены за {}, из последних известных",
+                            eventId, properties.getViews().getLookupTimeout());
+                    return lastKnownViews.getIfPresent(eventId);
+                });
+    }
+
+    /**
+     * Проставляет событиям поле views. Просмотры отсутствующих в кэше событий запрашиваются
+     * у сервера статистики одним запросом. Если сервер статистики недоступен, проставляются последние
+     * известные значения или null.
      *
      * @param events List
-     * @return List<Event> - события с просмотрами
+     * @return List<Event> - события с просмотрами, в том же порядке
      */
     public List<Event> getEventsWithViews(List<Event> events) {
-        List<ViewStats> stats;
-        List<String> uris = events.stream()
-                .map(e -> "/events/" + e.getId())
-                .collect(Collectors.toList());
+        if (events.isEmpty()) {
+            return events;
+        }
+        EventEnrichmentEvent event = EventEnrichmentEvent.start("views");
+        events.forEach(this::rememberCreatedOn);
+        Set<Long> ids = events.stream()
+                .map(Event::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Integer> views;
         try {
-            stats = getStats(
-                    LocalDateTime.now().minusDays(365),
-                    LocalDateTime.now(),
-                    uris,
-                    false);
-        } catch (UnsupportedEncodingException e) {
-            throw new InternalServerErrorException("неудачная кодировка");
+            views = viewsCache.getAll(ids);
+        } catch (StatsUnavailableException e) {
+            log.warn(":::::StatisticClient: {}, просмотры {} событий из последних известных", e.getMessage(), ids.size());
+            views = lastKnownViews.getAllPresent(ids);
+        }
+        Map<Long, Integer> eventViews = views;
+        events.forEach(e -> e.setViews(eventViews.get(e.getId())));
+        event.finish(events);
+        return events;
+    }
+
+    /**
+     * Запрашивает просмотры событий у сервера статистики в обход кэша, для фоновой синхронизации.
+     *
+     * @param createdOn время создания по айди события
+     * @return просмотры по айди события, 0 для событий без просмотров
+     * @throws StatsUnavailableException если сервер статистики недоступен
+     */
+    public Map<Long, Integer> fetchViews(Map<Long, LocalDateTime> createdOn) {
+        createdOn.forEach(this::rememberCreatedOn);
+        return loadViews(new ArrayList<>(createdOn.keySet()));
+    }
+
+    private void rememberCreatedOn(Event event) {
+        rememberCreatedOn(event.getId(), event.getCreatedOn());
+    }
+
+    private void rememberCreatedOn(Long eventId, LocalDateTime createdOn) {
+        if (createdOn != null) {
+            eventCreatedOn.put(eventId, createdOn);
         }
+    }
 
-        if (!stats.isEmpty()) {
-            log.info("stats не пустой");
-            Map<String, Event> eventsMap = events.stream().collect(Collectors.toMap(e -> "/events/" + e.getId(),
-                    Function.identity()));
-            Map<String, Integer> statsMap = stats.stream()
-                    .collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits));
-            for (Map.Entry<String, Integer> entry : statsMap.entrySet()) {
-                Event e = eventsMap.get(entry.getKey());
-                e.setViews(entry.getValue());
+    /**
+     * Обращается к серверу статистики за просмотрами событий с самого раннего createdOn среди них: раньше
+     * создания события просмотров его адреса нет, поэтому для каждого события это все его просмотры.
+     * Кэш просмотров обновляет записи только по айди, поэтому createdOn запоминается при чтении событий;
+     * для событий с неизвестным createdOn просмотры считаются за последние stats.views.window-days дней.
+     *
+     * @param eventIds айди событий
+     * @return просмотры по айди события, 0 для событий без просмотров
+     * @throws StatsUnavailableException если сервер статистики недоступен
+     */
+    private Map<Long, Integer> loadViews(List<Long> eventIds) {
+        List<String> uris = eventIds.stream()
+                .map(id -> EVENT_URI_PREFIX + id)
+                .collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = viewsStart(eventIds, now);
+        List<ViewStats> stats = timed("get_stats", uris.size(), () -> circuitBreaker.call(() -> {
+            try {
+                return getStats(start, now, uris, false);
+            } catch (UnsupportedEncodingException e) {
+                throw new InternalServerErrorException("неудачная кодировка");
             }
-            return new ArrayList<>(eventsMap.values());
+        }));
+        Map<Long, Integer> views = new HashMap<>();
+        eventIds.forEach(id -> views.put(id, 0));
+        if (stats != null) {
+            stats.forEach(s -> views.computeIfPresent(
+                    Long.parseLong(s.getUri().substring(EVENT_URI_PREFIX.length())), (id, v) -> v + s.getHits()));
         }
-        log.info("stats пустой");
-        return events;
+        lastKnownViews.putAll(views);
+        return views;
+    }
+
+    private LocalDateTime viewsStart(List<Long> eventIds, LocalDateTime now) {
+        LocalDateTime start = now;
+        for (Long id : eventIds) {
+            LocalDateTime createdOn = eventCreatedOn.getIfPresent(id);
+            if (createdOn == null) {
+                createdOn = now.minusDays(properties.getViews().getWindowDays());
+            }
+            if (createdOn.isBefore(start)) {
+                start = createdOn;
+            }
+        }
+        return start;
     }
 
-}
\ No newline at end of file
+    /**
+     * Таймер stats.client.requests обращения к серверу статистики: operation - get_stats или send_hits,
+     * outcome - success, error или circuit_open (запрос не отправлялся, circuit breaker разомкнут).
+     * То же обращение записывается событием JFR StatsRequestEvent.
+     */
+    private <T> T timed(String operation, int size, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        StatsRequestEvent event = StatsRequestEvent.start(operation, size);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (StatsUnavailableException e) {
+            if (e.getCause() == null) {
+                outcome = "circuit_open";
+            }
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("stats.client.requests", "operation", operation, "outcome", outcome));
+            event.finish(outcome);
+        }
+    }
+}
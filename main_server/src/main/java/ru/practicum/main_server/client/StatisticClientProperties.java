@@ -0,0 +1,71 @@
+package ru.practicum.main_server.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки клиента сервера статистики (префикс stats)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats")
+public class StatisticClientProperties {
+    private final Hits hits = new Hits();
+    private final Views views = new Views();
+    private final Http http = new Http();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Очередь отправки просмотров
+     */
+    @Getter
+    @Setter
+    public static class Hits {
+        private int queueCapacity = 10000;
+        private int flushSize = 500;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private HitOverflowPolicy overflowPolicy = HitOverflowPolicy.DROP;
+    }
+
+    /**
+     * Локальный кэш количества просмотров событий
+     */
+    @Getter
+    @Setter
+    public static class Views {
+        private int windowDays = 365;
+        private long cacheMaxSize = 10000;
+        private Duration cacheExpireAfterWrite = Duration.ofMinutes(1);
+        private Duration cacheRefreshAfterWrite = Duration.ofSeconds(10);
+        private int lookupThreads = 8;
+        private int lookupQueueCapacity = 100;
+        private Duration lookupTimeout = Duration.ofMillis(2500);
+    }
+
+    /**
+     * Пул соединений и таймауты HTTP-клиента
+     */
+    @Getter
+    @Setter
+    public static class Http {
+        private Duration connectTimeout = Duration.ofMillis(500);
+        private Duration readTimeout = Duration.ofSeconds(2);
+        private Duration connectionRequestTimeout = Duration.ofMillis(200);
+        private int maxConnections = 50;
+    }
+
+    /**
+     * Circuit breaker обращений к серверу статистики
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+}
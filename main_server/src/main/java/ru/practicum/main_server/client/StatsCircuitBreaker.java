@@ -0,0 +1,110 @@
+package ru.practicum.main_server.client;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.main_server.exception.StatsUnavailableException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker для обращений к серверу статистики. После failureThreshold ошибок подряд размыкается
+ * и на openDuration отклоняет вызовы без сетевого обращения, затем пропускает один пробный вызов:
+ * успех замыкает его, ошибка снова размыкает. Пробный вызов получает только call, isCallPermitted
+ * состояние не меняет.
+ */
+@Slf4j
+public class StatsCircuitBreaker {
+    /**
+     * Состояния: CLOSED - вызовы идут, OPEN - вызовы отклоняются, HALF_OPEN - идет пробный вызов
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public StatsCircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Выполняет вызов через circuit breaker.
+     *
+     * @param call обращение к серверу статистики
+     * @return результат вызова
+     * @throws StatsUnavailableException если circuit breaker разомкнут или вызов завершился ошибкой
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!acquirePermission()) {
+            throw new StatsUnavailableException("сервер статистики недоступен, circuit breaker разомкнут");
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            onFailure();
+            throw new StatsUnavailableException("ошибка обращения к серверу статистики: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true, если вызов сейчас был бы пропущен: circuit breaker замкнут или пора пробного вызова,
+     * который еще никто не занял
+     */
+    public synchronized boolean isCallPermitted() {
+        return state == State.CLOSED || state == State.OPEN && isOpenDurationElapsed();
+    }
+
+    /**
+     * Пропускает вызов; единственный вызов после openDuration становится пробным и переводит
+     * circuit breaker в HALF_OPEN до своего завершения.
+     */
+    private synchronized boolean acquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && isOpenDurationElapsed()) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isOpenDurationElapsed() {
+        return clock.millis() - openedAt >= openDuration.toMillis();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info(":::::StatsCircuitBreaker: сервер статистики снова доступен");
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    private synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn(":::::StatsCircuitBreaker: размыкание после {} ошибок подряд", failures);
+            }
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+}
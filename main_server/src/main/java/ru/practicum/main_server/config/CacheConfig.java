@@ -0,0 +1,36 @@
+package ru.practicum.main_server.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Кэши ответов публичных эндпоинтов. Размер и время жизни каждого кэша задаются спецификацией Caffeine
+ * (cache.*.spec), метрики попаданий публикуются как cache.gets. Изменения в админских сервисах очищают кэши
+ * после коммита транзакции, чтобы параллельное чтение не вернуло в кэш незакоммиченное состояние.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PUBLIC_COMPILATIONS = "publicCompilations";
+    public static final String PUBLIC_CATEGORIES = "publicCategories";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.public-compilations.spec}") String compilationsSpec,
+                                     @Value("${cache.public-categories.spec}") String categoriesSpec) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CaffeineCache(PUBLIC_COMPILATIONS, Caffeine.from(compilationsSpec).build()),
+                new CaffeineCache(PUBLIC_CATEGORIES, Caffeine.from(categoriesSpec).build())));
+        cacheManager.afterPropertiesSet();
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.main_server.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.Entity;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Количество строк, возвращенных методами репозиториев: распределение repository.rows по репозиторию и методу.
+ * Время методов репозиториев уже публикует Spring Boot (spring.data.repository.invocations).
+ * Учитываются коллекции, страницы, Optional и одиночные сущности; счетчики, флаги и потоки пропускаются.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(new RowsInterceptor(
+                                    repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private class RowsInterceptor implements MethodInterceptor {
+        private final String repository;
+
+        RowsInterceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            long rows = rows(result, invocation.getMethod().getReturnType());
+            if (rows >= 0) {
+                DistributionSummary.builder("repository.rows")
+                        .tag("repository", repository)
+                        .tag("method", invocation.getMethod().getName())
+                        .register(meterRegistry.getObject())
+                        .record(rows);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @return количество строк или -1, если результат не является набором строк
+     */
+    private static long rows(Object result, Class<?> returnType) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result == null) {
+            return returnType.isAnnotationPresent(Entity.class) ? 0 : -1;
+        }
+        return Hibernate.getClass(result).isAnnotationPresent(Entity.class) ? 1 : -1;
+    }
+}
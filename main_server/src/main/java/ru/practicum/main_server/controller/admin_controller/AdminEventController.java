@@ -6,6 +6,7 @@ import ru.practicum.main_server.model.*;
 import ru.practicum.main_server.model.dto.*;
 import ru.practicum.main_server.service.admin_service.AdminEventService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
@@ -26,13 +27,20 @@ public class AdminEventController {
                                          @RequestParam(required = false) List<Long> categories,
                                          @RequestParam(required = false) String rangeStart,
                                          @RequestParam(required = false) String rangeEnd,
+                                         @RequestParam(required = false) String cursor,
                                          @PositiveOrZero @RequestParam(defaultValue = "0", required = false) int from,
-                                         @Positive @RequestParam(defaultValue = "10", required = false) int size) {
+                                         @Positive @RequestParam(defaultValue = "10", required = false) int size,
+                                         HttpServletResponse response) {
         log.info(":::GET /admin/events получение списка событий по параметрам: айди пользователей={}," +
-                        " states={}, categories={}, rangeStart={}, rangeEnd={}, from={}, size={}",
-                users, states, categories, rangeStart, rangeEnd, from, size);
+                        " states={}, categories={}, rangeStart={}, rangeEnd={}, cursor={}, from={}, size={}",
+                users, states, categories, rangeStart, rangeEnd, cursor, from, size);
 
-        return adminEventService.readEvents(users, states, categories, rangeStart, rangeEnd, from, size);
+        CursorPage<EventFullDto> page = adminEventService.readEvents(users, states, categories, rangeStart, rangeEnd,
+                cursor, from, size);
+        if (page.getNextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getItems();
     }
 
     @PutMapping("/{eventId}")
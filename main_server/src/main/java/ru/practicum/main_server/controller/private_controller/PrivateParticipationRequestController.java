@@ -3,6 +3,7 @@ package ru.practicum.main_server.controller.private_controller;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.main_server.model.dto.ParticipationRequestDto;
+import ru.practicum.main_server.service.private_service.PrivateParticipationAdmissionService;
 import ru.practicum.main_server.service.private_service.PrivateParticipationRequestService;
 
 import java.util.List;
@@ -13,9 +14,12 @@ import java.util.List;
 @Slf4j
 public class PrivateParticipationRequestController {
     private final PrivateParticipationRequestService service;
+    private final PrivateParticipationAdmissionService admissionService;
 
-    public PrivateParticipationRequestController(PrivateParticipationRequestService service) {
+    public PrivateParticipationRequestController(PrivateParticipationRequestService service,
+                                                 PrivateParticipationAdmissionService admissionService) {
         this.service = service;
+        this.admissionService = admissionService;
     }
 
     @GetMapping
@@ -28,7 +32,7 @@ public class PrivateParticipationRequestController {
     public ParticipationRequestDto createParticipationRequest(@PathVariable Long userId,
                                                               @RequestParam(name = "eventId") Long eventId) {
         log.info(":::POST /users/{}/requests создание запроса пользователем, eventId={}", userId, eventId);
-        return service.createParticipationRequest(userId, eventId);
+        return admissionService.createParticipationRequest(userId, eventId);
     }
 
     @PatchMapping("/{requestId}/cancel")
@@ -2,7 +2,9 @@ package ru.practicum.main_server.controller.public_controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.main_server.model.dto.CategoryDto;
+import ru.practicum.main_server.model.dto.ResourceVersion;
 import ru.practicum.main_server.service.public_service.PublicCategoryService;
 
 import java.util.List;
@@ -19,14 +21,22 @@ public class PublicCategoryController {
 
     @GetMapping
     List<CategoryDto> readCategories(@RequestParam(defaultValue = "0") int from,
-                                     @RequestParam(defaultValue = "10") int size) {
+                                     @RequestParam(defaultValue = "10") int size,
+                                     WebRequest webRequest) {
         log.info(":::GET /categories чтение списка категорий from={}, size={}", from, size);
+        if (webRequest.checkNotModified(categoryService.readCategoriesVersion(from, size).getEtag())) {
+            return null;
+        }
         return categoryService.readAllCategories(from, size);
     }
 
     @GetMapping("/{id}")
-    CategoryDto readCategory(@PathVariable long id) {
+    CategoryDto readCategory(@PathVariable long id, WebRequest webRequest) {
         log.info(":::GET /categories/{} чтение категории по id", id);
+        ResourceVersion version = categoryService.readCategoryVersion(id);
+        if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            return null;
+        }
         return categoryService.readCategory(id);
     }
 }
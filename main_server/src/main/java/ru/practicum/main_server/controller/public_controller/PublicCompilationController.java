@@ -2,7 +2,9 @@ package ru.practicum.main_server.controller.public_controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.main_server.model.dto.CompilationDto;
+import ru.practicum.main_server.model.dto.ResourceVersion;
 import ru.practicum.main_server.service.public_service.PublicCompilationService;
 
 import java.util.List;
@@ -20,14 +22,24 @@ public class PublicCompilationController {
     @GetMapping()
     List<CompilationDto> readCompilations(@RequestParam(required = false) Boolean pinned,
                                           @RequestParam(defaultValue = "0") int from,
-                                          @RequestParam(defaultValue = "10") int size) {
+                                          @RequestParam(defaultValue = "10") int size,
+                                          WebRequest webRequest) {
         log.info(":::GET /compilations чтение подборок pinned={}, from={}, size={}", pinned, from, size);
-        return service.readCompilations(pinned, from, size);
+        // просмотры в теле - живые из сервера статистики, в версии - синхронизированные, поэтому ETag слабый
+        ResourceVersion version = service.readCompilationsVersion(pinned, from, size).weak();
+        if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            return null;
+        }
+        return service.readCompilations(pinned, from, size, version);
     }
 
     @GetMapping("/{id}")
-    CompilationDto readCompilation(@PathVariable long id) {
+    CompilationDto readCompilation(@PathVariable long id, WebRequest webRequest) {
         log.info(":::GET /compilations/{} чтение подборки по id", id);
-        return service.readCompilation(id);
+        ResourceVersion version = service.readCompilationVersion(id).weak();
+        if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            return null;
+        }
+        return service.readCompilation(id, version);
     }
 }
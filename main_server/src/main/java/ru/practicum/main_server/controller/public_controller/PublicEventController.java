@@ -2,13 +2,17 @@ package ru.practicum.main_server.controller.public_controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.main_server.model.dto.CommentDto;
+import ru.practicum.main_server.model.dto.CursorPage;
 import ru.practicum.main_server.model.dto.EventFullDto;
 import ru.practicum.main_server.model.dto.EventShortDto;
+import ru.practicum.main_server.model.dto.ResourceVersion;
 import ru.practicum.main_server.service.public_service.PublicCommentService;
 import ru.practicum.main_server.service.public_service.PublicEventService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
@@ -31,21 +35,32 @@ public class PublicEventController {
                                           @RequestParam(required = false) String rangeEnd,
                                           @RequestParam(required = false) Boolean onlyAvailable,
                                           @RequestParam(required = false) String sort,
+                                          @RequestParam(required = false) String cursor,
                                           @RequestParam(defaultValue = "0") int from,
                                           @RequestParam(defaultValue = "10") int size,
-                                          HttpServletRequest request) {
+                                          HttpServletRequest request,
+                                          HttpServletResponse response) {
         log.info(":::GET /events получение списка событий по параметрам: text={}, categories={}, paid={}, " +
-                        "rangeStart={}, rangeEnd={}, onlyAvailable={}, sort={}, from={}, size={}",
-                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+                        "rangeStart={}, rangeEnd={}, onlyAvailable={}, sort={}, cursor={}, from={}, size={}",
+                text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, cursor, from, size);
         publicEventService.sentHitStat(request);
-        return publicEventService
-                .readEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
+        CursorPage<EventShortDto> page = publicEventService
+                .readEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, cursor, from, size);
+        if (page.getNextCursor() != null) {
+            response.setHeader(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getItems();
     }
 
     @GetMapping("/{id}")
-    public EventFullDto readEvent(@PathVariable long id, HttpServletRequest request) {
+    public EventFullDto readEvent(@PathVariable long id, HttpServletRequest request, WebRequest webRequest) {
         log.info(":::GET /events/{} чтение по id", id);
         publicEventService.sentHitStat(request);
+        // просмотры в теле - живые из сервера статистики, в версии - синхронизированные, поэтому ETag слабый
+        ResourceVersion version = publicEventService.readEventVersion(id).weak();
+        if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            return null;
+        }
         return publicEventService.readEvent(id);
     }
 
@@ -1,5 +1,6 @@
 package ru.practicum.main_server.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -57,7 +58,8 @@ public class ErrorHandlingControllerAdvice {
         return new ResponseEntity<>(apiError, HttpStatus.NOT_FOUND);
     }
 
-    @ExceptionHandler({ConflictException.class, ConstraintViolationException.class, ValidationException.class})
+    @ExceptionHandler({ConflictException.class, ConstraintViolationException.class, ValidationException.class,
+            OptimisticLockingFailureException.class})
     public ResponseEntity<ApiError> handleException409(Exception e) {
         ApiError apiError = new ApiError();
         apiError.setMessage(e.getMessage());
@@ -0,0 +1,10 @@
+package ru.practicum.main_server.exception;
+
+/**
+ * Исключение для ошибки 403 при исчерпанном лимите участников события
+ */
+public class ParticipantLimitException extends ForbiddenException {
+    public ParticipantLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.main_server.exception;
+
+/**
+ * Исключение при недоступности сервера статистики (ошибка, таймаут или открытый circuit breaker).
+ * Не доходит до клиента: StatisticClient отвечает последними известными просмотрами.
+ */
+public class StatsUnavailableException extends RuntimeException {
+    public StatsUnavailableException(String message) {
+        super(message);
+    }
+
+    public StatsUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
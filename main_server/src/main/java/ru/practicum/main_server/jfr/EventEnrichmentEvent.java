@@ -0,0 +1,65 @@
+package ru.practicum.main_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Событие JFR: этап сборки ответа с событиями - load (чтение из базы), views (просмотры из кэша
+ * или сервера статистики), mapping (преобразование в DTO с ленивой подгрузкой связей).
+ * Айди событий записываются только при активной записи, не больше MAX_IDS.
+ */
+@Name("ru.practicum.main_server.EventEnrichment")
+@Label("Event Enrichment")
+@Description("Этап сборки ответа с событиями")
+@Category({"Explore With Me", "Main Server"})
+@StackTrace(false)
+public class EventEnrichmentEvent extends Event {
+    private static final int MAX_IDS = 50;
+
+    @Label("Phase")
+    @Description("load, views или mapping")
+    private String phase;
+
+    @Label("Events")
+    @Description("Количество событий")
+    private int events;
+
+    @Label("Event Ids")
+    @Description("Айди событий через запятую, не больше 50")
+    private String eventIds;
+
+    public static EventEnrichmentEvent start(String phase) {
+        EventEnrichmentEvent event = new EventEnrichmentEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void finish(Collection<ru.practicum.main_server.model.Event> events) {
+        end();
+        if (shouldCommit()) {
+            this.events = events.size();
+            this.eventIds = events.stream()
+                    .limit(MAX_IDS)
+                    .map(e -> String.valueOf(e.getId()))
+                    .collect(Collectors.joining(","));
+            commit();
+        }
+    }
+
+    public void finish(long eventId) {
+        end();
+        if (shouldCommit()) {
+            this.events = 1;
+            this.eventIds = String.valueOf(eventId);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.main_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: обращение к серверу статистики. Длительность - время вызова через circuit breaker,
+ * включая ожидание соединения из пула.
+ */
+@Name("ru.practicum.main_server.StatsRequest")
+@Label("Stats Request")
+@Description("Обращение к серверу статистики")
+@Category({"Explore With Me", "Main Server"})
+@StackTrace(false)
+public class StatsRequestEvent extends Event {
+    @Label("Operation")
+    @Description("get_stats или send_hits")
+    private String operation;
+
+    @Label("Size")
+    @Description("Количество адресов запроса просмотров или отправленных просмотров")
+    private int size;
+
+    @Label("Outcome")
+    @Description("success, error или circuit_open")
+    private String outcome;
+
+    public static StatsRequestEvent start(String operation, int size) {
+        StatsRequestEvent event = new StatsRequestEvent();
+        event.operation = operation;
+        event.size = size;
+        event.begin();
+        return event;
+    }
+
+    public void finish(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
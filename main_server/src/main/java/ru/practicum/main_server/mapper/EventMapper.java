@@ -1,7 +1,9 @@
 package ru.practicum.main_server.mapper;
 
 import lombok.experimental.UtilityClass;
+import org.hibernate.Hibernate;
 import ru.practicum.main_server.model.Event;
+import ru.practicum.main_server.model.Location;
 import ru.practicum.main_server.model.State;
 import ru.practicum.main_server.model.dto.EventFullDto;
 import ru.practicum.main_server.model.dto.EventShortDto;
@@ -38,7 +40,8 @@ public class EventMapper {
                 .title(event.getTitle())
                 .createdOn(event.getCreatedOn().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
                 .description(event.getDescription())
-                .location(event.getLocation())
+                // место уходит в ответ сущностью, ленивый прокси Hibernate сериализовался бы со служебными полями
+                .location((Location) Hibernate.unproxy(event.getLocation()))
                 .participantLimit(event.getParticipantLimit())
                 .publishedOn(event.getPublishedOn() == null ? null : event.getPublishedOn()
                         .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
@@ -59,6 +62,7 @@ public class EventMapper {
                 .participantLimit(newEventDto.getParticipantLimit())
                 .requestModeration(newEventDto.isRequestModeration())
                 .state(State.PENDING)
+                .confirmedRequests(0L)
                 .title(newEventDto.getTitle())
                 .createdOn(LocalDateTime.now())
                 .build();
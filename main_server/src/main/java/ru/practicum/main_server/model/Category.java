@@ -1,8 +1,10 @@
 package ru.practicum.main_server.model;
 
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Builder
 @NoArgsConstructor
@@ -18,4 +20,10 @@ public class Category {
     private Long id;
     @Column(name = "name", length = 100)
     private String name;
+    @Version
+    @Column(name = "version")
+    private Long version;
+    @UpdateTimestamp
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
 }
@@ -1,8 +1,10 @@
 package ru.practicum.main_server.model;
 
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,4 +29,10 @@ public class Compilation {
             inverseJoinColumns = {@JoinColumn(name = "event_id")})
     @ToString.Exclude
     private List<Event> events = new ArrayList<>();
+    @Version
+    @Column(name = "version")
+    private Long version;
+    @UpdateTimestamp
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
 }
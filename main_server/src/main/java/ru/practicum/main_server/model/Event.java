@@ -1,6 +1,7 @@
 package ru.practicum.main_server.model;
 
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -19,7 +20,8 @@ public class Event {
     private Long id;
     @Column(name = "annotation", nullable = false)
     private String annotation;
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @ToString.Exclude
     private Category category;
     @Column(name = "created_on")
     private LocalDateTime createdOn;
@@ -27,9 +29,11 @@ public class Event {
     private String description;
     @Column(name = "event_date", nullable = false)
     private LocalDateTime eventDate;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     private User initiator;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     private Location location;
     @Column(name = "paid", nullable = false)
     private boolean paid;
@@ -43,8 +47,19 @@ public class Event {
     private State state;
     @Column(name = "title", length = 254, nullable = false)
     private String title;
-    @Transient
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
     private Long confirmedRequests;
+    /**
+     * Просмотры, периодически синхронизируемые с сервером статистики, для сортировки в запросе
+     */
+    @Column(name = "views", insertable = false, updatable = false)
+    private Long syncedViews;
     @Transient
     private Integer views;
+    @Version
+    @Column(name = "version")
+    private Long version;
+    @UpdateTimestamp
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
 }
@@ -19,9 +19,11 @@ public class ParticipationRequest {
     private Long id;
     @Column(name = "created", nullable = false)
     private LocalDateTime created;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     private Event event;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
     private User requester;
     @Enumerated(EnumType.STRING)
     private Status status;
@@ -0,0 +1,18 @@
+package ru.practicum.main_server.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Страница выдачи с курсором следующей страницы, null - если страница последняя
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String nextCursor;
+}
@@ -0,0 +1,65 @@
+package ru.practicum.main_server.model.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.main_server.exception.BadRequestException;
+import ru.practicum.main_server.model.Event;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации событий: ключ сортировки (дата или синхронизированные просмотры) и айди
+ * последнего события страницы. Клиенту передается непрозрачной строкой в Base64.
+ */
+@Slf4j
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class EventCursor {
+    private static final String SEPARATOR = "|";
+    private static final String BY_DATE = "D";
+    private static final String BY_VIEWS = "V";
+
+    private final LocalDateTime eventDate;
+    private final Long views;
+    private final Long id;
+
+    public static EventCursor afterByDate(Event event) {
+        return new EventCursor(event.getEventDate(), null, event.getId());
+    }
+
+    public static EventCursor afterByViews(Event event) {
+        return new EventCursor(null, event.getSyncedViews(), event.getId());
+    }
+
+    public boolean isByViews() {
+        return views != null;
+    }
+
+    public String encode() {
+        String value = isByViews()
+                ? BY_VIEWS + SEPARATOR + views + SEPARATOR + id
+                : BY_DATE + SEPARATOR + eventDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static EventCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR);
+            if (parts.length == 3 && parts[0].equals(BY_DATE)) {
+                return new EventCursor(LocalDateTime.parse(parts[1]), null, Long.parseLong(parts[2]));
+            }
+            if (parts.length == 3 && parts[0].equals(BY_VIEWS)) {
+                return new EventCursor(null, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.info("EventCursor: не удалось разобрать курсор {}: {}", token, e.getMessage());
+        }
+        throw new BadRequestException(String.format("некорректный курсор %s", token));
+    }
+}
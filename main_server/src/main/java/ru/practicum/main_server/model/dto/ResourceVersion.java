@@ -0,0 +1,68 @@
+package ru.practicum.main_server.model.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Версия ответа для условных запросов: ETag - хэш версий и изменяемых счетчиков сущностей, из которых
+ * собирается ответ, lastModified - наибольшее время изменения среди них (мс эпохи, -1 - неизвестно).
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ResourceVersion {
+    private final String etag;
+    private final long lastModified;
+
+    /**
+     * @param rows строки запроса версий: айди, версии, счетчики и времена изменения сущностей
+     */
+    public static ResourceVersion of(List<Object[]> rows) {
+        MessageDigest digest = sha256();
+        LocalDateTime lastModified = null;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0x1f);
+                if (value instanceof LocalDateTime
+                        && (lastModified == null || lastModified.isBefore((LocalDateTime) value))) {
+                    lastModified = (LocalDateTime) value;
+                }
+            }
+            digest.update((byte) 0x1e);
+        }
+        return new ResourceVersion(etag(digest), lastModified == null ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Та же версия со слабым ETag: для ответов, часть которых (просмотры) меняется без изменения версии
+     */
+    public ResourceVersion weak() {
+        return etag.startsWith("W/") ? this : new ResourceVersion("W/" + etag, lastModified);
+    }
+
+    private static String etag(MessageDigest digest) {
+        StringBuilder etag = new StringBuilder("\"");
+        byte[] hash = digest.digest();
+        for (int i = 0; i < 16; i++) {
+            etag.append(String.format("%02x", hash[i]));
+        }
+        return etag.append('"').toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
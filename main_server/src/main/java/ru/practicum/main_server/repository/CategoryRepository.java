@@ -1,12 +1,24 @@
 package ru.practicum.main_server.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.main_server.model.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Page<Category> findAll(Pageable pageable);
+
+    /**
+     * Версии страницы категорий для ETag
+     */
+    @Query("select c.id, c.version, c.updatedOn from Category c")
+    List<Object[]> findVersionRows(Pageable pageable);
+
+    @Query("select c.id, c.version, c.updatedOn from Category c where c.id = :id")
+    List<Object[]> findVersionRowsById(Long id);
 }
@@ -1,5 +1,6 @@
 package ru.practicum.main_server.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.main_server.model.Comment;
@@ -9,8 +10,10 @@ import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
+    @EntityGraph(attributePaths = "author")
     @Query("select c from Comment c where c.state = ?1 and c.event.id = ?2")
     List<Comment> findByStateAndEventId(CommentState state, Long eventId);
 
+    @EntityGraph(attributePaths = "author")
     List<Comment> findByEventId(Long eventId);
 }
@@ -1,15 +1,43 @@
 package ru.practicum.main_server.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.main_server.model.Compilation;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    @Query("select c from Compilation c where c.pinned = ?1")
-    Page<Compilation> findAllByPinned(boolean pinned, Pageable pageable);
+    /**
+     * Страница айди подборок. Подборки с событиями загружаются отдельно (findAllWithEventsByIdIn),
+     * потому что постраничная выборка с fetch join коллекции выполняется в памяти.
+     */
+    @Query("select c.id from Compilation c where (:pinned is null or c.pinned = :pinned)")
+    List<Long> findIds(Boolean pinned, Pageable pageable);
+
+    /**
+     * Подборки вместе с событиями и их категориями, инициаторами и локациями одним запросом.
+     */
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator", "events.location"})
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("select distinct c from Compilation c where c.id in :ids")
+    List<Compilation> findAllWithEventsByIdIn(Collection<Long> ids);
+
+    /**
+     * Версии подборок и всего, что попадает в их представление: состав и версии событий, счетчики событий,
+     * которые обновляются без увеличения версии, версии категорий событий и времена изменения
+     */
+    @Query("select c.id, c.version, c.updatedOn, e.id, e.version, e.confirmedRequests, e.syncedViews, e.updatedOn, " +
+            "cat.version, cat.updatedOn from Compilation c left join c.events e left join e.category cat " +
+            "where c.id in :ids order by c.id, e.id")
+    List<Object[]> findVersionRows(Collection<Long> ids);
 
     @Modifying
     @Query("delete from Compilation c where c.id = ?1")
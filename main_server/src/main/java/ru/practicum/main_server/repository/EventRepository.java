@@ -2,42 +2,135 @@ package ru.practicum.main_server.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.main_server.model.Event;
 import ru.practicum.main_server.model.State;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<Event, Long> {
-
-    @Query("SELECT e FROM Event AS e " +
-            "WHERE ((:text) IS NULL " +
-            "OR UPPER(e.annotation) LIKE UPPER(CONCAT('%', :text, '%')) " +
-            "OR UPPER(e.description) LIKE UPPER(CONCAT('%', :text, '%'))) " +
+    String SEARCH_PUBLISHED_EVENTS = "SELECT e FROM Event AS e " +
+            "WHERE e.state = ru.practicum.main_server.model.State.PUBLISHED " +
+            "AND (:onlyAvailable = FALSE OR e.participantLimit IS NULL OR e.participantLimit = 0 " +
+            "OR e.confirmedRequests < e.participantLimit) " +
+            "AND ((:text) IS NULL OR text_match(e.annotation, e.description, :text) = TRUE) " +
             "AND ((:categories) IS NULL OR e.category.id IN :categories) " +
             "AND ((:paid) IS NULL OR e.paid = :paid) " +
             "AND (e.eventDate >= :start) " +
-            "AND ( e.eventDate <= :end)")
-    Page<Event> searchEvents(String text, List<Long> categories, Boolean paid, LocalDateTime start,
-                             LocalDateTime end, Pageable pageable);
-
-    Page<Event> findAllByInitiatorId(Long userId, Pageable pageable);
-
-    @Query("SELECT e FROM Event AS e " +
+            "AND ( e.eventDate <= :end)";
+    String SEARCH_EVENTS_BY_ADMIN = "SELECT e FROM Event AS e " +
             "WHERE ((:users) IS NULL OR e.initiator.id IN :users) " +
             "AND ((:states) IS NULL OR e.state IN :states) " +
             "AND ((:categories) IS NULL OR e.category.id IN :categories) " +
             "AND (e.eventDate >= :start) " +
-            "AND ( e.eventDate <= :end)")
-    Page<Event> searchEventsByAdmin(List<Long> users, List<State> states, List<Long> categories,
-                                    LocalDateTime start, LocalDateTime end, Pageable pageable);
+            "AND ( e.eventDate <= :end)";
+    String AFTER_CURSOR = " AND (e.eventDate > :afterDate OR (e.eventDate = :afterDate AND e.id > :afterId))";
+    String AFTER_VIEWS_CURSOR = " AND (e.syncedViews > :afterViews " +
+            "OR (e.syncedViews = :afterViews AND e.id > :afterId))";
+
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query(SEARCH_PUBLISHED_EVENTS)
+    Slice<Event> searchEvents(boolean onlyAvailable, String text, List<Long> categories, Boolean paid,
+                              LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Поиск по тексту, упорядоченный по релевантности (функции text_match и text_rank регистрирует диалект)
+     */
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query(SEARCH_PUBLISHED_EVENTS + " ORDER BY text_rank(e.annotation, e.description, :text) DESC, e.id")
+    Slice<Event> searchEventsByRelevance(boolean onlyAvailable, String text, List<Long> categories, Boolean paid,
+                                         LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Следующая страница поиска после курсора (keyset-пагинация по дате и айди события)
+     */
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query(SEARCH_PUBLISHED_EVENTS + AFTER_CURSOR)
+    Slice<Event> searchEventsAfter(boolean onlyAvailable, String text, List<Long> categories, Boolean paid,
+                                   LocalDateTime start, LocalDateTime end, LocalDateTime afterDate, Long afterId,
+                                   Pageable pageable);
+
+    /**
+     * Следующая страница поиска после курсора (keyset-пагинация по просмотрам и айди события)
+     */
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query(SEARCH_PUBLISHED_EVENTS + AFTER_VIEWS_CURSOR)
+    Slice<Event> searchEventsAfterViews(boolean onlyAvailable, String text, List<Long> categories, Boolean paid,
+                                        LocalDateTime start, LocalDateTime end, Long afterViews, Long afterId,
+                                        Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAllByInitiatorId(Long userId, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query(SEARCH_EVENTS_BY_ADMIN)
+    Slice<Event> searchEventsByAdmin(List<Long> users, List<State> states, List<Long> categories,
+                                     LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Следующая страница поиска администратора после курсора (keyset-пагинация по дате и айди события)
+     */
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    @Query(SEARCH_EVENTS_BY_ADMIN + AFTER_CURSOR)
+    Slice<Event> searchEventsByAdminAfter(List<Long> users, List<State> states, List<Long> categories,
+                                          LocalDateTime start, LocalDateTime end, LocalDateTime afterDate,
+                                          Long afterId, Pageable pageable);
+
+    /**
+     * Событие вместе с категорией, инициатором и местом: связи событий ленивые, а почти каждое чтение
+     * события заканчивается его преобразованием в DTO
+     */
     @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Optional<Event> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     List<Event> findAllById(Iterable<Long> ids);
 
+    /**
+     * Айди и время создания событий в состоянии state после afterId - страница фоновой синхронизации просмотров
+     */
+    @Query("SELECT e.id, e.createdOn FROM Event e WHERE e.state = :state AND e.id > :afterId ORDER BY e.id")
+    List<Object[]> findCreatedOnByStateAfter(State state, Long afterId, Pageable pageable);
+
+    /**
+     * Состояние события и все, что меняет его публичное представление: версии события и категории,
+     * счетчики, которые обновляются без увеличения версии, и времена изменения
+     */
+    @Query("SELECT e.state, e.version, e.confirmedRequests, e.syncedViews, e.updatedOn, e.publishedOn, " +
+            "c.version, c.updatedOn FROM Event e JOIN e.category c WHERE e.id = :id")
+    List<Object[]> findVersionRows(Long id);
+
     @Query("select (count(e) > 0) from Event e where e.id = ?1 and e.state = ?2")
     boolean existsByIdAndState(Long eventId, State state);
-}
 
+    /**
+     * Атомарно увеличивает счетчик подтвержденных заявок, если лимит участников не исчерпан
+     *
+     * @param eventId айди события
+     * @return 1 - место занято, 0 - лимит исчерпан
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + 1, e.updatedOn = CURRENT_TIMESTAMP " +
+            "WHERE e.id = :eventId " +
+            "AND (e.participantLimit IS NULL OR e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit)")
+    int incrementConfirmedRequests(Long eventId);
+
+    /**
+     * Атомарно уменьшает счетчик подтвержденных заявок
+     *
+     * @param eventId айди события
+     * @return количество измененных событий
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests - 1, e.updatedOn = CURRENT_TIMESTAMP " +
+            "WHERE e.id = :eventId AND e.confirmedRequests > 0")
+    int decrementConfirmedRequests(Long eventId);
+}
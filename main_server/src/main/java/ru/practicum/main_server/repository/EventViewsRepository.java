@@ -0,0 +1,32 @@
+package ru.practicum.main_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетное обновление синхронизированных просмотров событий
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+    private static final String UPDATE_VIEWS = "UPDATE events SET views = ?, updated_on = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND views <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param views просмотры по айди события
+     * @return количество событий, у которых изменились просмотры
+     */
+    public int updateViews(Map<Long, Integer> views) {
+        List<Object[]> args = new ArrayList<>(views.size());
+        views.forEach((id, v) -> args.add(new Object[]{v, id, v}));
+        return Arrays.stream(jdbcTemplate.batchUpdate(UPDATE_VIEWS, args)).sum();
+    }
+}
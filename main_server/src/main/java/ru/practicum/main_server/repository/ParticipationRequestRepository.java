@@ -1,13 +1,13 @@
 package ru.practicum.main_server.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import ru.practicum.main_server.model.Event;
 import ru.practicum.main_server.model.ParticipationRequest;
 import ru.practicum.main_server.model.Status;
 import ru.practicum.main_server.model.User;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ParticipationRequestRepository extends JpaRepository<ParticipationRequest, Long> {
 
@@ -17,10 +17,9 @@ public interface ParticipationRequestRepository extends JpaRepository<Participat
 
     List<ParticipationRequest> findAllByEventId(long eventId);
 
-    ParticipationRequest getReferenceById(Long requestId);
+    Optional<ParticipationRequest> findByIdAndEventId(Long id, Long eventId);
 
-    @Query("select r from Request as r where r.status = :status and (r.event in :events)")
-    List<ParticipationRequest> findByStatusAndEvent(Status status, List<Event> events);
+    ParticipationRequest getReferenceById(Long requestId);
 
     Long countByEventIdAndStatus(Long eventId, Status status);
 }
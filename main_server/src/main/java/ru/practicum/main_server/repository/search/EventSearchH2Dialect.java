@@ -0,0 +1,22 @@
+package ru.practicum.main_server.repository.search;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Диалект H2 для профилей test и ci: полнотекстовый поиск заменен поиском подстроки без учета регистра,
+ * релевантность тем выше, чем ближе к началу текста найдена подстрока.
+ * Функции JPQL: text_match(annotation, description, text) и text_rank(annotation, description, text).
+ */
+public class EventSearchH2Dialect extends H2Dialect {
+    private static final String POSITION = "locate(upper(?3), upper(concat(coalesce(?1, ''), ' ', coalesce(?2, ''))))";
+
+    public EventSearchH2Dialect() {
+        super();
+        registerFunction("text_match",
+                new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(" + POSITION + " > 0)"));
+        registerFunction("text_rank",
+                new SQLFunctionTemplate(StandardBasicTypes.FLOAT, "(1.0 / (1 + " + POSITION + "))"));
+    }
+}
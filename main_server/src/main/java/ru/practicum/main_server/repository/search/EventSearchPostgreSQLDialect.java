@@ -0,0 +1,24 @@
+package ru.practicum.main_server.repository.search;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Диалект PostgreSQL с полнотекстовым поиском событий. Выражение tsvector совпадает с выражением
+ * GIN-индекса idx_events_text_search из db/migration/postgresql/V3__create_vendor_indexes.sql, поэтому поиск
+ * идет по индексу.
+ * Функции JPQL: text_match(annotation, description, text) и text_rank(annotation, description, text).
+ */
+public class EventSearchPostgreSQLDialect extends PostgreSQL10Dialect {
+    private static final String DOCUMENT = "to_tsvector('russian', coalesce(?1, '') || ' ' || coalesce(?2, ''))";
+    private static final String QUERY = "plainto_tsquery('russian', cast(?3 as text))";
+
+    public EventSearchPostgreSQLDialect() {
+        super();
+        registerFunction("text_match",
+                new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN, "(" + DOCUMENT + " @@ " + QUERY + ")"));
+        registerFunction("text_rank",
+                new SQLFunctionTemplate(StandardBasicTypes.FLOAT, "ts_rank(" + DOCUMENT + ", " + QUERY + ")"));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.main_server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.main_server.client.StatisticClient;
+import ru.practicum.main_server.exception.StatsUnavailableException;
+import ru.practicum.main_server.model.State;
+import ru.practicum.main_server.repository.EventRepository;
+import ru.practicum.main_server.repository.EventViewsRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Периодически переносит просмотры опубликованных событий с сервера статистики в колонку events.views,
+ * по которой публичный поиск сортирует и листает события в запросе.
+ */
+@Slf4j
+@Service
+public class EventViewsSyncService {
+    private final EventRepository eventRepository;
+    private final EventViewsRepository eventViewsRepository;
+    private final StatisticClient statClient;
+    private final int batchSize;
+
+    @Autowired
+    public EventViewsSyncService(EventRepository eventRepository, EventViewsRepository eventViewsRepository,
+                                 StatisticClient statClient,
+                                 @Value("${stats.views.sync-batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.eventViewsRepository = eventViewsRepository;
+        this.statClient = statClient;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${stats.views.sync-interval:PT1M}",
+            fixedDelayString = "${stats.views.sync-interval:PT1M}")
+    public void syncViews() {
+        long afterId = 0;
+        int changed = 0;
+        List<Object[]> rows;
+        do {
+            rows = eventRepository.findCreatedOnByStateAfter(State.PUBLISHED, afterId, PageRequest.of(0, batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            Map<Long, LocalDateTime> createdOn = new LinkedHashMap<>();
+            rows.forEach(row -> createdOn.put((Long) row[0], (LocalDateTime) row[1]));
+            try {
+                changed += eventViewsRepository.updateViews(statClient.fetchViews(createdOn));
+            } catch (StatsUnavailableException e) {
+                log.warn("EventViewsSyncService: синхронизация просмотров прервана: {}", e.getMessage());
+                return;
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        } while (rows.size() == batchSize);
+        log.info("EventViewsSyncService: синхронизированы просмотры, изменено событий: {}", changed);
+    }
+}
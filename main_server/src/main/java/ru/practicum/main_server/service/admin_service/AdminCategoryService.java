@@ -2,8 +2,11 @@ package ru.practicum.main_server.service.admin_service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.main_server.config.CacheConfig;
 import ru.practicum.main_server.model.Category;
 import ru.practicum.main_server.model.dto.CategoryDto;
 import ru.practicum.main_server.model.dto.NewCategoryDto;
@@ -24,18 +27,30 @@ public class AdminCategoryService {
         this.categoryRepository = categoryRepository;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_CATEGORIES, allEntries = true)
     public CategoryDto createCategory(NewCategoryDto newCategoryDto) {
         Category category = toCategoryFromNewCategoryDto(newCategoryDto);
         log.info("AdminCategoryService: создание категории с именем {} прошло успешно", newCategoryDto.getName());
         return toCategoryDto(categoryRepository.save(category));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PUBLIC_CATEGORIES, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
+    })
     public CategoryDto updateCategory(CategoryDto categoryDto) {
         log.info("AdminCategoryService: обновление категории {}", categoryDto);
-        checkCategoryInDb(categoryDto.getId());
-        return toCategoryDto(categoryRepository.save(toCategoryFromCategoryDto(categoryDto)));
+        Category category = categoryRepository.findById(categoryDto.getId()).orElseThrow(() ->
+                new EntityNotFoundException(String.format("CategoryService: категории с id=%d нет в базе",
+                        categoryDto.getId())));
+        category.setName(categoryDto.getName());
+        return toCategoryDto(categoryRepository.save(category));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PUBLIC_CATEGORIES, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
+    })
     public void deleteCategory(long id) {
         log.info("AdminCategoryService: удаление категории по id={}", id);
         checkCategoryInDb(id);
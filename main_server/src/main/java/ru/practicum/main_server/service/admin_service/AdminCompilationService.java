@@ -2,8 +2,10 @@ package ru.practicum.main_server.service.admin_service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.main_server.config.CacheConfig;
 import ru.practicum.main_server.exception.NotFoundException;
 import ru.practicum.main_server.mapper.CompilationMapper;
 import ru.practicum.main_server.model.Compilation;
@@ -28,6 +30,7 @@ public class AdminCompilationService {
         this.eventRepository = eventRepository;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
     public CompilationDto createCompilation(NewCompilationDto newCompilationDto) {
         log.info("AdminCompilationService: создание подборки {}", newCompilationDto);
         Compilation compilation = CompilationMapper.toCompilation(newCompilationDto);
@@ -37,12 +40,14 @@ public class AdminCompilationService {
         return CompilationMapper.toCompilationDto(newCompilation);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
     public void deleteCompilation(Long id) {
         getCompilationFromDbOrThrow(id);
         compilationRepository.deleteCompilationById(id);
         log.info("AdminCompilationService: удаление подборки с id={}", id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
     public void deleteEventFromCompilation(Long compId, Long eventId) {
         log.info("AdminCompilationService: удаление события id={} из подборки id={}", eventId, compId);
         Compilation compilation = getCompilationFromDbOrThrow(compId);
@@ -52,6 +57,7 @@ public class AdminCompilationService {
         compilationRepository.save(compilation);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
     public void addEventToCompilation(Long compId, Long eventId) {
         Compilation compilation = getCompilationFromDbOrThrow(compId);
         List<Event> events = compilation.getEvents();
@@ -60,12 +66,14 @@ public class AdminCompilationService {
         compilationRepository.save(compilation);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
     public void unpinCompilation(Long compId) {
         Compilation compilation = getCompilationFromDbOrThrow(compId);
         compilation.setPinned(false);
         compilationRepository.save(compilation);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, allEntries = true)
     public void pinCompilation(Long compId) {
         Compilation compilation = getCompilationFromDbOrThrow(compId);
         compilation.setPinned(true);
@@ -3,70 +3,82 @@ package ru.practicum.main_server.service.admin_service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main_server.client.StatisticClient;
+import ru.practicum.main_server.exception.BadRequestException;
 import ru.practicum.main_server.exception.ForbiddenException;
 import ru.practicum.main_server.exception.NotFoundException;
 import ru.practicum.main_server.mapper.EventMapper;
 import ru.practicum.main_server.model.Category;
 import ru.practicum.main_server.model.Event;
-import ru.practicum.main_server.model.ParticipationRequest;
 import ru.practicum.main_server.model.State;
 import ru.practicum.main_server.model.dto.AdminUpdateEventRequest;
+import ru.practicum.main_server.model.dto.CursorPage;
+import ru.practicum.main_server.model.dto.EventCursor;
 import ru.practicum.main_server.model.dto.EventFullDto;
 import ru.practicum.main_server.repository.CategoryRepository;
 import ru.practicum.main_server.repository.EventRepository;
-import ru.practicum.main_server.repository.ParticipationRequestRepository;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static ru.practicum.main_server.model.Status.CONFIRMED;
 
 @Service
 @Slf4j
 @Transactional
 public class AdminEventService {
     private final EventRepository eventRepository;
+    private static final Sort BY_EVENT_DATE = Sort.by("eventDate", "id");
+
     private final StatisticClient statClient;
     private final CategoryRepository categoryRepository;
-    private final ParticipationRequestRepository participationRequestRepository;
 
     @Autowired
     public AdminEventService(EventRepository eventRepository,
-                             StatisticClient statClient, CategoryRepository categoryRepository,
-                             ParticipationRequestRepository participationRequestRepository) {
+                             StatisticClient statClient, CategoryRepository categoryRepository) {
         this.eventRepository = eventRepository;
         this.statClient = statClient;
         this.categoryRepository = categoryRepository;
-        this.participationRequestRepository = participationRequestRepository;
     }
 
-    public List<EventFullDto> readEvents(List<Long> users, List<State> states, List<Long> categories,
-                                         String rangeStart, String rangeEnd, int from, int size) {
+    /**
+     * Поиск событий администратором. Без курсора страница выбирается по from, с курсором - сразу после
+     * события из курсора, без OFFSET. Количество событий не считается.
+     */
+    public CursorPage<EventFullDto> readEvents(List<Long> users, List<State> states, List<Long> categories,
+                                               String rangeStart, String rangeEnd, String cursor, int from, int size) {
         LocalDateTime start = getStartTime(rangeStart);
         LocalDateTime end = getEndTime(rangeEnd);
-        log.info("AdminEventService: чтение всех событий, from: {}, size: {}", from, size);
-        List<Event> e = statClient.getEventsWithViews(eventRepository.searchEventsByAdmin(users, states, categories,
-                start, end, PageRequest.of(from / size, size)).toList());
-        log.info("////eventsWithViews{}", e);
-        List<Event> eventsWithRequests = getEventsWithConfirmedRequests(e);
-        log.info("////eventsWithRequests{}", eventsWithRequests);
-        return eventsWithRequests.stream().map(EventMapper::toEventFullDto).collect(Collectors.toList());
+        log.info("AdminEventService: чтение всех событий, cursor: {}, from: {}, size: {}", cursor, from, size);
+        Slice<Event> slice;
+        if (cursor == null) {
+            slice = eventRepository.searchEventsByAdmin(users, states, categories, start, end,
+                    PageRequest.of(from / size, size, BY_EVENT_DATE));
+        } else {
+            EventCursor after = EventCursor.decode(cursor);
+            if (after.isByViews()) {
+                throw new BadRequestException("курсор поддерживается только для сортировки по дате события");
+            }
+            slice = eventRepository.searchEventsByAdminAfter(users, states, categories, start, end,
+                    after.getEventDate(), after.getId(), PageRequest.of(0, size, BY_EVENT_DATE));
+        }
+        List<Event> e = statClient.getEventsWithViews(new ArrayList<>(slice.getContent()));
+        String nextCursor = slice.hasNext() ? EventCursor.afterByDate(e.get(e.size() - 1)).encode() : null;
+        return new CursorPage<>(e.stream().map(EventMapper::toEventFullDto).collect(Collectors.toList()),
+                nextCursor);
     }
 
     public EventFullDto updateEvent(Long eventId, AdminUpdateEventRequest adminUpdateEventRequest) {
         Event event = getEventFromAdminRequest(eventId, adminUpdateEventRequest);
         event = eventRepository.save(event);
         EventFullDto eventFullDto = EventMapper.toEventFullDto(event);
-        eventFullDto.setViews(statClient.getViewsSingleEvent(eventId));
-        eventFullDto.setConfirmedRequests(participationRequestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
+        eventFullDto.setViews(statClient.getViewsSingleEvent(event));
         log.info("AdminEventService: обновление события с id={}, запрос: {}", eventId, adminUpdateEventRequest);
         return eventFullDto;
     }
@@ -172,27 +184,6 @@ public class AdminEventService {
         return end;
     }
 
-    /**
-     * @param events список событий
-     * @return List событий с полями confirmedRequests
-     */
-    private List<Event> getEventsWithConfirmedRequests(List<Event> events) {
-        Map<Long, Event> eventsWithRequests = events.stream().collect(Collectors.toMap(Event::getId, Function.identity()));
-        Map<Event, Long> countedRequests = participationRequestRepository
-                .findByStatusAndEvent(CONFIRMED, events).stream()
-                .collect(Collectors.groupingBy(ParticipationRequest::getEvent, Collectors.counting()));
-        if (countedRequests.isEmpty()) {
-            return events;
-        }
-        for (Map.Entry<Event, Long> entry : countedRequests.entrySet()) {
-            Event e = entry.getKey();
-            e.setConfirmedRequests(entry.getValue());
-            eventsWithRequests.put(e.getId(), e);
-        }
-        log.info("////eventsWithRequests{}",eventsWithRequests);
-        return new ArrayList<>(eventsWithRequests.values());
-    }
-
     private Event getEventFromDbOrThrow(Long id) {
         return eventRepository.findById(id).orElseThrow(() -> new NotFoundException(
                 String.format("AdminCompilationService: события по id=%d нет в базе", id)));
@@ -0,0 +1,42 @@
+package ru.practicum.main_server.service.private_service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * События, лимит участников которых исчерпан по данным этого узла. Отметка живет
+ * participation.admission.full-ttl, чтобы место, освобожденное через другой узел, не терялось надолго.
+ */
+@Component
+public class EventCapacityTracker {
+    private final Map<Long, Long> fullUntil = new ConcurrentHashMap<>();
+    private final long fullTtlMs;
+
+    public EventCapacityTracker(@Value("${participation.admission.full-ttl:5s}") Duration fullTtl) {
+        this.fullTtlMs = fullTtl.toMillis();
+    }
+
+    public boolean isKnownFull(Long eventId) {
+        Long until = fullUntil.get(eventId);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            fullUntil.remove(eventId, until);
+            return false;
+        }
+        return true;
+    }
+
+    public void markFull(Long eventId) {
+        fullUntil.put(eventId, System.currentTimeMillis() + fullTtlMs);
+    }
+
+    public void markAvailable(Long eventId) {
+        fullUntil.remove(eventId);
+    }
+}
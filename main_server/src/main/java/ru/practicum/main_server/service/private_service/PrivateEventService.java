@@ -17,18 +17,13 @@ import ru.practicum.main_server.model.dto.NewEventDto;
 import ru.practicum.main_server.model.dto.UpdateEventRequest;
 import ru.practicum.main_server.repository.CategoryRepository;
 import ru.practicum.main_server.repository.EventRepository;
-import ru.practicum.main_server.repository.ParticipationRequestRepository;
 import ru.practicum.main_server.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static ru.practicum.main_server.model.Status.CONFIRMED;
 
 @Service
 @Slf4j
@@ -38,37 +33,31 @@ public class PrivateEventService {
     private final StatisticClient statClient;
     private final CategoryRepository categoryRepository;
     private final PrivateLocationService locationService;
-    private final ParticipationRequestRepository participationRequestRepository;
 
     @Autowired
     public PrivateEventService(EventRepository eventRepository,
                                StatisticClient statClient, UserRepository userRepository,
-                               CategoryRepository categoryRepository, PrivateLocationService locationService,
-                               ParticipationRequestRepository participationRequestRepository) {
+                               CategoryRepository categoryRepository, PrivateLocationService locationService) {
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.statClient = statClient;
         this.categoryRepository = categoryRepository;
         this.locationService = locationService;
-        this.participationRequestRepository = participationRequestRepository;
     }
 
     public List<EventShortDto> readEvents(long userId, int from, int size) {
         log.info("PrivateEventService: чтение событий userId={}, from={}, size={}", userId, from, size);
         List<Event> e = statClient.getEventsWithViews(eventRepository.findAllByInitiatorId(userId,
                 PageRequest.of(from / size, size)).toList());
-        List<Event> eventsWithRequests = getEventsWithConfirmedRequests(e);
-        return eventsWithRequests.stream().map(EventMapper::toEventShortDto).collect(Collectors.toList());
+        return e.stream().map(EventMapper::toEventShortDto).collect(Collectors.toList());
     }
 
     @Transactional
     public EventFullDto updateEvent(Long userId, UpdateEventRequest updateEventRequest) {
         Event event = getEventFromRequest(userId, updateEventRequest);
-        event.setConfirmedRequests(participationRequestRepository
-                .countByEventIdAndStatus(event.getId(), Status.CONFIRMED));
         event = eventRepository.save(event);
         EventFullDto eventFullDto = EventMapper.toEventFullDto(event);
-        eventFullDto.setViews(statClient.getViewsSingleEvent(updateEventRequest.getEventId()));
+        eventFullDto.setViews(statClient.getViewsSingleEvent(event));
         log.info("PrivateEventService: событие обновлено userId={}, newEvent={}", userId, updateEventRequest);
         return eventFullDto;
     }
@@ -94,8 +83,7 @@ public class PrivateEventService {
         checkEventInitiator(userId, eventId);
         log.info("PrivateEventService: чтение пользователем с id={} события с id={}", userId, eventId);
         Event event = eventRepository.getReferenceById(eventId);
-        event.setViews(statClient.getViewsSingleEvent(eventId));
-        event.setConfirmedRequests(participationRequestRepository.countByEventIdAndStatus(eventId, Status.CONFIRMED));
+        event.setViews(statClient.getViewsSingleEvent(event));
         return EventMapper.toEventFullDto(event);
     }
 
@@ -105,7 +93,7 @@ public class PrivateEventService {
         checkEventInitiator(userId, eventId);
         event.setState(State.CANCELED);
         event = eventRepository.save(event);
-        event.setViews(statClient.getViewsSingleEvent(eventId));
+        event.setViews(statClient.getViewsSingleEvent(event));
         log.info("PrivateEventService: событие id={} отменено пользователем с id={}", eventId, userId);
         return EventMapper.toEventFullDto(event);
     }
@@ -155,28 +143,6 @@ public class PrivateEventService {
         return event;
     }
 
-    /**
-     * @param events список событий
-     * @return List событий с полями confirmedRequests
-     */
-    private List<Event> getEventsWithConfirmedRequests(List<Event> events) {
-        Map<Long, Event> eventsWithRequests = events.stream().collect(Collectors.toMap(Event::getId, Function.identity()));
-        Map<Event, Long> countedRequests = participationRequestRepository
-                .findByStatusAndEvent(CONFIRMED, events).stream()
-                .collect(Collectors.groupingBy(ParticipationRequest::getEvent, Collectors.counting()));
-        if (countedRequests.isEmpty()) {
-            log.info("////countedRequests пустой");
-            return events;
-        }
-        for (Map.Entry<Event, Long> entry : countedRequests.entrySet()) {
-            Event e = entry.getKey();
-            e.setConfirmedRequests(entry.getValue());
-            eventsWithRequests.put(e.getId(), e);
-        }
-        log.info("////eventsWithRequests{}",eventsWithRequests);
-        return new ArrayList<>(eventsWithRequests.values());
-    }
-
     /**
      * Проверяет является ли пользователь инициатором события
      *
@@ -0,0 +1,91 @@
+package ru.practicum.main_server.service.private_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.main_server.exception.ParticipantLimitException;
+import ru.practicum.main_server.model.dto.ParticipationRequestDto;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Прием заявок на участие при массовой записи на событие. Заявки на одно событие обрабатываются
+ * на узле по очереди под блокировкой из participation.admission.stripes полос, транзакция открывается
+ * уже под блокировкой. Окончательную проверку лимита выполняет условное обновление счетчика в базе,
+ * а заявки на заполненное событие отклоняются без обращения к базе.
+ */
+@Slf4j
+@Service
+public class PrivateParticipationAdmissionService {
+    private final PrivateParticipationRequestService requestService;
+    private final EventCapacityTracker capacityTracker;
+    private final boolean enabled;
+    private final Lock[] stripes;
+    private final Timer admissionTimer;
+    private final Counter acceptedRequests;
+    private final Counter rejectedKnownFull;
+    private final Counter rejectedLimit;
+
+    @Autowired
+    public PrivateParticipationAdmissionService(PrivateParticipationRequestService requestService,
+                                                EventCapacityTracker capacityTracker,
+                                                MeterRegistry meterRegistry,
+                                                @Value("${participation.admission.enabled:true}") boolean enabled,
+                                                @Value("${participation.admission.stripes:64}") int stripes) {
+        this.requestService = requestService;
+        this.capacityTracker = capacityTracker;
+        this.enabled = enabled;
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.admissionTimer = meterRegistry.timer("participation.admission.time");
+        this.acceptedRequests = meterRegistry.counter("participation.admission.accepted");
+        this.rejectedKnownFull = meterRegistry.counter("participation.admission.rejected", "reason", "known_full");
+        this.rejectedLimit = meterRegistry.counter("participation.admission.rejected", "reason", "limit");
+    }
+
+    public ParticipationRequestDto createParticipationRequest(Long userId, Long eventId) {
+        if (!enabled) {
+            return requestService.createParticipationRequest(userId, eventId);
+        }
+        rejectIfKnownFull(eventId);
+        long start = System.nanoTime();
+        Lock lock = stripes[Math.floorMod(eventId.hashCode(), stripes.length)];
+        lock.lock();
+        try {
+            rejectIfKnownFull(eventId);
+            return admit(userId, eventId);
+        } finally {
+            lock.unlock();
+            admissionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ParticipationRequestDto admit(Long userId, Long eventId) {
+        try {
+            ParticipationRequestDto participation = requestService.createParticipationRequest(userId, eventId);
+            acceptedRequests.increment();
+            return participation;
+        } catch (ParticipantLimitException e) {
+            capacityTracker.markFull(eventId);
+            rejectedLimit.increment();
+            throw e;
+        }
+    }
+
+    private void rejectIfKnownFull(Long eventId) {
+        if (capacityTracker.isKnownFull(eventId)) {
+            rejectedKnownFull.increment();
+            log.info("PrivateParticipationAdmissionService: лимит участников события id={} исчерпан", eventId);
+            throw new ParticipantLimitException(String.format("лимит участников события с id=%d исчерпан",
+                    eventId));
+        }
+    }
+}
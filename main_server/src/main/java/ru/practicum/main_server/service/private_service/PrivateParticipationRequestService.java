@@ -4,9 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.main_server.exception.BadRequestException;
 import ru.practicum.main_server.exception.ForbiddenException;
 import ru.practicum.main_server.exception.NotFoundException;
+import ru.practicum.main_server.exception.ParticipantLimitException;
 import ru.practicum.main_server.mapper.ParticipationRequestMapper;
 import ru.practicum.main_server.model.*;
 import ru.practicum.main_server.model.dto.ParticipationRequestDto;
@@ -25,13 +28,16 @@ public class PrivateParticipationRequestService {
     private final ParticipationRequestRepository participationRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final EventCapacityTracker capacityTracker;
 
     @Autowired
     public PrivateParticipationRequestService(ParticipationRequestRepository participationRepository,
-                                              UserRepository userRepository, EventRepository eventRepository) {
+                                              UserRepository userRepository, EventRepository eventRepository,
+                                              EventCapacityTracker capacityTracker) {
         this.participationRepository = participationRepository;
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
+        this.capacityTracker = capacityTracker;
     }
 
     public List<ParticipationRequestDto> readParticipationRequests(Long userId) {
@@ -55,6 +61,8 @@ public class PrivateParticipationRequestService {
                 .build();
         if (event.isRequestModeration()) {
             participation.setStatus(Status.PENDING);
+        } else {
+            takeParticipantPlace(event);
         }
         log.info("PrivateParticipationRequestService: создание запроса пользователем с id={} на событие с id={}",
                 userId, eventId);
@@ -65,6 +73,7 @@ public class PrivateParticipationRequestService {
     public ParticipationRequestDto cancelRequest(Long userId, Long requestId) {
         ParticipationRequest participation = getRequestFromDbOrThrow(requestId);
         if (userId.equals(participation.getRequester().getId())) {
+            releaseParticipantPlace(participation);
             participation.setStatus(Status.CANCELED);
         } else {
             throw new ForbiddenException("только инициатор события может его отменить");
@@ -83,22 +92,23 @@ public class PrivateParticipationRequestService {
     @Transactional
     public ParticipationRequestDto approveParticipationRequest(Long userId, Long eventId, Long requestId) {
         validateInitiator(userId, eventId);
-        Event event = getEventFromDbOrThrow(eventId);
-        ParticipationRequest participation = getRequestFromDbOrThrow(requestId);
+        ParticipationRequest participation = getEventRequestFromDbOrThrow(eventId, requestId);
         if (!participation.getStatus().equals(Status.PENDING)) {
             throw new ForbiddenException("чтобы принять запрос, он должен быть в статусе PENDING");
         }
-        if (event.getConfirmedRequests() != null && event.getParticipantLimit() <= event.getConfirmedRequests()) {
+        if (eventRepository.incrementConfirmedRequests(eventId) == 0) {
             participation.setStatus(Status.REJECTED);
+        } else {
+            participation.setStatus(Status.CONFIRMED);
         }
-        participation.setStatus(Status.CONFIRMED);
         return ParticipationRequestMapper.toParticipationRequestDto(participationRepository.save(participation));
     }
 
     @Transactional
     public ParticipationRequestDto rejectParticipationRequest(Long userId, Long eventId, Long requestId) {
         validateInitiator(userId, eventId);
-        ParticipationRequest participation = getRequestFromDbOrThrow(requestId);
+        ParticipationRequest participation = getEventRequestFromDbOrThrow(eventId, requestId);
+        releaseParticipantPlace(participation);
         participation.setStatus(Status.REJECTED);
         return ParticipationRequestMapper.toParticipationRequestDto(participationRepository.save(participation));
     }
@@ -115,20 +125,52 @@ public class PrivateParticipationRequestService {
             throw new BadRequestException(String.format("запрос пользователя с id=%d на участие в событии с " +
                     "id=%d уже существует", event.getId(), requester.getId()));
         }
-        if (event.getInitiator().equals(requester)) {
+        if (event.getInitiator().getId().equals(requester.getId())) {
             throw new ForbiddenException(String.format("инициатор с id=%d события с id=%d не может " +
                     "создать на него запрос", requester.getId(), event.getId()));
         }
         if (!(event.getState().equals(State.PUBLISHED))) {
             throw new ForbiddenException("невозможно создать запрос на неопубликованное событие");
         }
-        if (event.getParticipantLimit() != null && event.getConfirmedRequests() != null
-                && event.getParticipantLimit() != 0 && event.getParticipantLimit() <= event.getConfirmedRequests()) {
-            throw new ForbiddenException(String.format("превышено количество участников события - %d",
+        if (event.getParticipantLimit() != null && event.getParticipantLimit() != 0
+                && event.getParticipantLimit() <= event.getConfirmedRequests()) {
+            throw new ParticipantLimitException(String.format("превышено количество участников события - %d",
                     event.getConfirmedRequests()));
         }
     }
 
+    /**
+     * Занимает место участника атомарным обновлением счетчика события, проверка лимита выполняется базой
+     *
+     * @param event событие
+     */
+    private void takeParticipantPlace(Event event) {
+        if (eventRepository.incrementConfirmedRequests(event.getId()) == 0) {
+            throw new ParticipantLimitException(String.format("превышено количество участников события - %d",
+                    event.getParticipantLimit()));
+        }
+    }
+
+    /**
+     * Освобождает место участника, если заявка была подтверждена. Событие отмечается доступным
+     * после коммита уменьшения счетчика: до коммита новая заявка все равно упрется в старое значение,
+     * а при откате отметка разошлась бы с базой.
+     *
+     * @param participation заявка на участие
+     */
+    private void releaseParticipantPlace(ParticipationRequest participation) {
+        if (participation.getStatus() == Status.CONFIRMED) {
+            Long eventId = participation.getEvent().getId();
+            eventRepository.decrementConfirmedRequests(eventId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    capacityTracker.markAvailable(eventId);
+                }
+            });
+        }
+    }
+
     private Event getEventFromDbOrThrow(Long id) {
         return eventRepository.findById(id).orElseThrow(() -> new NotFoundException(
                 String.format("AdminCompilationService: события по id=%d нет в базе", id)));
@@ -139,6 +181,16 @@ public class PrivateParticipationRequestService {
                 String.format("PrivateParticipationRequestService: запроса по id=%d нет в базе", requestId)));
     }
 
+    /**
+     * Заявка ищется вместе с событием из адреса: счетчик подтвержденных заявок меняется у события из адреса,
+     * а освобождается место у события заявки, и заявка чужого события развела бы эти счетчики
+     */
+    private ParticipationRequest getEventRequestFromDbOrThrow(Long eventId, Long requestId) {
+        return participationRepository.findByIdAndEventId(requestId, eventId).orElseThrow(() -> new NotFoundException(
+                String.format("PrivateParticipationRequestService: запроса по id=%d на событие с id=%d нет в базе",
+                        requestId, eventId)));
+    }
+
     private User getUserFromDbOrThrow(Long id) {
         return userRepository.findById(id).orElseThrow(() -> new NotFoundException(
                 String.format("PrivateEventService: пользователя по id=%d нет в базе", id)));
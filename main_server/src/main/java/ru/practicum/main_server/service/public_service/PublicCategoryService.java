@@ -1,11 +1,15 @@
 package ru.practicum.main_server.service.public_service;
 
 import lombok.extern.slf4j.Slf4j;
+import ru.practicum.main_server.config.CacheConfig;
 import ru.practicum.main_server.mapper.CategoryMapper;
 import ru.practicum.main_server.model.Category;
 import ru.practicum.main_server.model.dto.CategoryDto;
+import ru.practicum.main_server.model.dto.ResourceVersion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import ru.practicum.main_server.repository.CategoryRepository;
 
@@ -25,19 +29,36 @@ public class PublicCategoryService {
         this.categoryRepository = categoryRepository;
     }
 
+    @Cacheable(cacheNames = CacheConfig.PUBLIC_CATEGORIES, key = "'page:' + #from + ':' + #size")
     public List<CategoryDto> readAllCategories(int from, int size) {
         log.info("PublicCategoryService: чтение всех категорий from: {}, size: {}", from, size);
-        return categoryRepository.findAll(PageRequest.of(from / size, size))
+        return categoryRepository.findAll(PageRequest.of(from / size, size, Sort.by("id")))
                 .stream()
                 .map(CategoryMapper::toCategoryDto)
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.PUBLIC_CATEGORIES, key = "'id:' + #id")
     public CategoryDto readCategory(long id) {
         log.info("PublicCategoryService: чтение категории по id={}", id);
         return toCategoryDto(getCategoryFromDbOrThrow(id));
     }
 
+    /**
+     * Версия страницы категорий для условного запроса
+     */
+    public ResourceVersion readCategoriesVersion(int from, int size) {
+        return ResourceVersion.of(categoryRepository.findVersionRows(PageRequest.of(from / size, size, Sort.by("id"))));
+    }
+
+    public ResourceVersion readCategoryVersion(long id) {
+        List<Object[]> rows = categoryRepository.findVersionRowsById(id);
+        if (rows.isEmpty()) {
+            throw new EntityNotFoundException(String.format("PublicCategoryService: категории с id=%d нет в базе", id));
+        }
+        return ResourceVersion.of(rows);
+    }
+
     private Category getCategoryFromDbOrThrow(long id) {
         return categoryRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(String
                 .format("PublicCategoryService: категории с id=%d нет в базе", id)));
@@ -3,17 +3,25 @@ package ru.practicum.main_server.service.public_service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main_server.client.StatisticClient;
+import ru.practicum.main_server.config.CacheConfig;
 import ru.practicum.main_server.exception.NotFoundException;
+import ru.practicum.main_server.jfr.EventEnrichmentEvent;
 import ru.practicum.main_server.mapper.CompilationMapper;
 import ru.practicum.main_server.model.Compilation;
+import ru.practicum.main_server.model.Event;
 import ru.practicum.main_server.model.dto.CompilationDto;
+import ru.practicum.main_server.model.dto.ResourceVersion;
 import ru.practicum.main_server.repository.CompilationRepository;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -28,35 +36,74 @@ public class PublicCompilationService {
         this.statClient = statClient;
     }
 
-    public List<CompilationDto> readCompilations(Boolean pinned, int from, int size) {
+    /**
+     * Читает страницу подборок за постоянное число запросов: айди страницы, подборки с событиями
+     * (entity graph) и один запрос просмотров по всем событиям страницы.
+     * Изменения событий не сбрасывают кэш, поэтому ключ кэша включает версию страницы: после изменения
+     * события подборки или его счетчиков страница читается заново.
+     *
+     * @param version версия страницы из readCompilationsVersion
+     */
+    @Cacheable(cacheNames = CacheConfig.PUBLIC_COMPILATIONS,
+            key = "'page:' + #pinned + ':' + #from + ':' + #size + ':' + #version.etag")
+    public List<CompilationDto> readCompilations(Boolean pinned, int from, int size, ResourceVersion version) {
         log.info("PublicCompilationService: Чтение компиляций pinned={}, from={}, size={}", pinned, from, size);
-        if (pinned == null) {
-            List<Compilation> comps = compilationRepository.findAll(PageRequest.of(from / size, size)).toList();
-            List<CompilationDto> compsWithViews = new ArrayList<>();
-            for (Compilation comp : comps) {
-                comp.setEvents(statClient.getEventsWithViews(comp.getEvents()));
-                compsWithViews.add(CompilationMapper.toCompilationDto(comp));
-            }
-            return compsWithViews;
-        } else {
-            List<Compilation> comps = compilationRepository.findAllByPinned(pinned, PageRequest.of(from / size, size)).toList();
-            List<CompilationDto> compsWithViews = new ArrayList<>();
-            for (Compilation comp : comps) {
-                comp.setEvents(statClient.getEventsWithViews(comp.getEvents()));
-                compsWithViews.add(CompilationMapper.toCompilationDto(comp));
-            }
-            return compsWithViews;
+        List<Long> ids = compilationRepository.findIds(pinned, PageRequest.of(from / size, size, Sort.by("id")));
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        EventEnrichmentEvent load = EventEnrichmentEvent.start("load");
+        Map<Long, Compilation> comps = compilationRepository.findAllWithEventsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Compilation::getId, Function.identity()));
+        List<Event> events = comps.values().stream()
+                .flatMap(comp -> comp.getEvents().stream())
+                .distinct()
+                .collect(Collectors.toList());
+        load.finish(events);
+        statClient.getEventsWithViews(events);
+        EventEnrichmentEvent mapping = EventEnrichmentEvent.start("mapping");
+        List<CompilationDto> dtos = ids.stream()
+                .map(comps::get)
+                .map(CompilationMapper::toCompilationDto)
+                .collect(Collectors.toList());
+        mapping.finish(events);
+        return dtos;
     }
 
-    public CompilationDto readCompilation(long id) {
-        CompilationDto compilationDto = CompilationMapper.toCompilationDto(getCompilationFromDbOrThrow(id));
+    /**
+     * @param version версия подборки из readCompilationVersion, входит в ключ кэша
+     */
+    @Cacheable(cacheNames = CacheConfig.PUBLIC_COMPILATIONS, key = "'id:' + #id + ':' + #version.etag")
+    public CompilationDto readCompilation(long id, ResourceVersion version) {
+        Compilation compilation = getCompilationFromDbOrThrow(id);
+        statClient.getEventsWithViews(compilation.getEvents());
+        CompilationDto compilationDto = CompilationMapper.toCompilationDto(compilation);
         log.info("PublicCompilationService: Чтение компиляции по id={}", id);
         return compilationDto;
     }
 
+    /**
+     * Версия страницы подборок для условного запроса: айди страницы и один запрос версий подборок и их событий,
+     * без загрузки событий и обращения к сервису статистики. Просмотры в версии - синхронизированные
+     * в events.views.
+     */
+    public ResourceVersion readCompilationsVersion(Boolean pinned, int from, int size) {
+        List<Long> ids = compilationRepository.findIds(pinned, PageRequest.of(from / size, size, Sort.by("id")));
+        return ResourceVersion.of(ids.isEmpty() ? List.of() : compilationRepository.findVersionRows(ids));
+    }
+
+    public ResourceVersion readCompilationVersion(long id) {
+        List<Object[]> rows = compilationRepository.findVersionRows(List.of(id));
+        if (rows.isEmpty()) {
+            throw new NotFoundException(String.format("PublicCompilationService: подборки по id=%d нет в базе", id));
+        }
+        return ResourceVersion.of(rows);
+    }
+
     private Compilation getCompilationFromDbOrThrow(Long id) {
-        return compilationRepository.findById(id).orElseThrow(() -> new NotFoundException(
-                String.format("AdminCompilationService: подборки по id=%d нет в базе", id)));
+        return compilationRepository.findAllWithEventsByIdIn(List.of(id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException(
+                        String.format("AdminCompilationService: подборки по id=%d нет в базе", id)));
     }
 }
@@ -3,92 +3,153 @@ package ru.practicum.main_server.service.public_service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.main_server.client.StatisticClient;
 import ru.practicum.main_server.exception.BadRequestException;
 import ru.practicum.main_server.exception.NotFoundException;
+import ru.practicum.main_server.jfr.EventEnrichmentEvent;
 import ru.practicum.main_server.mapper.EventMapper;
 import ru.practicum.main_server.model.Event;
-import ru.practicum.main_server.model.ParticipationRequest;
 import ru.practicum.main_server.model.State;
-import ru.practicum.main_server.model.Status;
+import ru.practicum.main_server.model.dto.CursorPage;
 import ru.practicum.main_server.model.dto.EndpointHitDto;
 import ru.practicum.main_server.model.dto.EventFullDto;
+import ru.practicum.main_server.model.dto.EventCursor;
 import ru.practicum.main_server.model.dto.EventShortDto;
+import ru.practicum.main_server.model.dto.ResourceVersion;
 import ru.practicum.main_server.repository.EventRepository;
-import ru.practicum.main_server.repository.ParticipationRequestRepository;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
-import static ru.practicum.main_server.model.Status.CONFIRMED;
 
 @Service
 @Slf4j
 @Transactional(readOnly = true)
 public class PublicEventService {
     private final EventRepository eventRepository;
+    private static final Sort BY_EVENT_DATE = Sort.by("eventDate", "id");
+    private static final Sort BY_VIEWS = Sort.by("syncedViews", "id");
+
     private final StatisticClient statClient;
-    private final ParticipationRequestRepository participationRequestRepository;
+    private final TransactionTemplate readTransaction;
 
 
     @Autowired
     public PublicEventService(EventRepository eventRepository,
                               StatisticClient statClient,
-                              ParticipationRequestRepository participationRequestRepository) {
+                              PlatformTransactionManager transactionManager) {
         this.eventRepository = eventRepository;
         this.statClient = statClient;
-        this.participationRequestRepository = participationRequestRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
     }
 
-    public List<EventShortDto> readEvents(String text, List<Long> categories, Boolean paid, String rangeStart,
-                                          String rangeEnd, Boolean onlyAvailable, String sort, int from, int size) {
+    /**
+     * Поиск опубликованных событий. Фильтры, доступность и сортировка (по дате события, по просмотрам,
+     * синхронизированным с сервером статистики, или по релевантности текста) выполняются в запросе, поэтому
+     * страницы полные и упорядочены глобально. Без курсора страница выбирается по from, с курсором - сразу
+     * после события из курсора, без OFFSET. Количество событий не считается, курсор следующей страницы
+     * возвращается, пока есть следующая страница. Для сортировки по релевантности курсор не выдается.
+     */
+    public CursorPage<EventShortDto> readEvents(String text, List<Long> categories, Boolean paid, String rangeStart,
+                                                String rangeEnd, Boolean onlyAvailable, String sort, String cursor,
+                                                int from, int size) {
         LocalDateTime start = getStartTime(rangeStart);
         LocalDateTime end = getEndTime(rangeEnd);
-
-        List<Event> events = statClient.getEventsWithViews(eventRepository.searchEvents(text, categories, paid, start,
-                end, PageRequest.of(from / size, size)).stream().collect(Collectors.toList()));
-        List<Event> eventsWithRequests = getEventsWithConfirmedRequests(events);
-        if (sort != null && sort.equals("EVENT_DATE")) {
-            eventsWithRequests = eventsWithRequests.stream()
-                    .sorted(Comparator.comparing(Event::getEventDate))
-                    .collect(Collectors.toList());
+        boolean sortByViews = sort != null && sort.equals("VIEWS");
+        boolean sortByRelevance = sort != null && sort.equals("RELEVANCE");
+        boolean available = onlyAvailable != null && onlyAvailable;
+        Sort order = sortByViews ? BY_VIEWS : BY_EVENT_DATE;
+        if (text != null && text.isBlank()) {
+            text = null;
         }
 
-        List<EventShortDto> listShortDto = eventsWithRequests.stream()
-                .filter(event -> event.getState().equals(State.PUBLISHED))
-                .map(EventMapper::toEventShortDto)
-                .collect(Collectors.toList());
-        if (sort != null && sort.equals("VIEWS")) {
-            listShortDto = listShortDto.stream()
-                    .sorted(Comparator.comparing(EventShortDto::getViews))
-                    .collect(Collectors.toList());
+        EventEnrichmentEvent load = EventEnrichmentEvent.start("load");
+        Slice<Event> slice;
+        if (sortByRelevance) {
+            if (text == null || cursor != null) {
+                throw new BadRequestException("сортировка по релевантности требует text и не поддерживает курсор");
+            }
+            slice = eventRepository.searchEventsByRelevance(available, text, categories, paid, start, end,
+                    PageRequest.of(from / size, size));
+        } else if (cursor == null) {
+            slice = eventRepository.searchEvents(available, text, categories, paid, start, end,
+                    PageRequest.of(from / size, size, order));
+        } else {
+            EventCursor after = EventCursor.decode(cursor);
+            if (after.isByViews() != sortByViews) {
+                throw new BadRequestException("курсор получен для другой сортировки");
+            }
+            slice = sortByViews
+                    ? eventRepository.searchEventsAfterViews(available, text, categories, paid, start, end,
+                    after.getViews(), after.getId(), PageRequest.of(0, size, order))
+                    : eventRepository.searchEventsAfter(available, text, categories, paid, start, end,
+                    after.getEventDate(), after.getId(), PageRequest.of(0, size, order));
         }
-        if (onlyAvailable != null && onlyAvailable) {
-            listShortDto = listShortDto.stream()
-                    .filter(eventShortDto -> eventShortDto.getConfirmedRequests()
-                            < eventShortDto.getParticipationLimit())
-                    .collect(Collectors.toList());
+        load.finish(slice.getContent());
+        List<Event> events = statClient.getEventsWithViews(new ArrayList<>(slice.getContent()));
+        String nextCursor = null;
+        if (slice.hasNext() && !sortByRelevance) {
+            Event last = events.get(events.size() - 1);
+            nextCursor = (sortByViews ? EventCursor.afterByViews(last) : EventCursor.afterByDate(last)).encode();
         }
-        return listShortDto;
+        EventEnrichmentEvent mapping = EventEnrichmentEvent.start("mapping");
+        List<EventShortDto> dtos = events.stream()
+                .map(EventMapper::toEventShortDto)
+                .collect(Collectors.toList());
+        mapping.finish(events);
+        return new CursorPage<>(dtos, nextCursor);
     }
 
+    /**
+     * Читает опубликованное событие. Просмотры запрашиваются у сервера статистики, как только событие
+     * найдено и опубликовано, параллельно с подгрузкой его связей. Ожидание просмотров идет уже после
+     * завершения транзакции чтения, не удерживая соединение с базой.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto readEvent(long id) {
-        EventFullDto dto = EventMapper.toEventFullDto(getEventFromDbOrThrow(id));
-        if (!(dto.getState().equals(State.PUBLISHED.toString()))) {
+        AtomicReference<CompletableFuture<Integer>> views = new AtomicReference<>();
+        EventFullDto dto = readTransaction.execute(status -> {
+            EventEnrichmentEvent load = EventEnrichmentEvent.start("load");
+            Event event = getEventFromDbOrThrow(id);
+            if (event.getState() != State.PUBLISHED) {
+                throw new BadRequestException("можно посмотреть только опубликованные события");
+            }
+            views.set(statClient.getViewsSingleEventAsync(event));
+            EventFullDto eventDto = EventMapper.toEventFullDto(event);
+            load.finish(id);
+            return eventDto;
+        });
+        dto.setViews(views.get().join());
+        return dto;
+    }
+
+    /**
+     * Версия опубликованного события для условного запроса. Читает одну строку без обращения к сервису
+     * статистики; просмотры в ETag - синхронизированные в events.views.
+     */
+    public ResourceVersion readEventVersion(long id) {
+        List<Object[]> rows = eventRepository.findVersionRows(id);
+        if (rows.isEmpty()) {
+            throw new NotFoundException(String.format("PublicEventService: события по id=%d нет в базе", id));
+        }
+        if (rows.get(0)[0] != State.PUBLISHED) {
             throw new BadRequestException("можно посмотреть только опубликованные события");
         }
-        dto.setViews(statClient.getViewsSingleEvent(id));
-        dto.setConfirmedRequests(participationRequestRepository.countByEventIdAndStatus(id, Status.CONFIRMED));
-        return dto;
+        return ResourceVersion.of(rows);
     }
 
     /**
@@ -131,25 +192,4 @@ public class PublicEventService {
         return eventRepository.findById(id).orElseThrow(() -> new NotFoundException(
                 String.format("AdminCompilationService: события по id=%d нет в базе", id)));
     }
-
-    /**
-     * @param events список событий
-     * @return List событий с полями confirmedRequests
-     */
-    private List<Event> getEventsWithConfirmedRequests(List<Event> events) {
-        Map<Long, Event> eventsWithRequests = events.stream().collect(Collectors.toMap(Event::getId, Function.identity()));
-        Map<Event, Long> countedRequests = participationRequestRepository
-                .findByStatusAndEvent(CONFIRMED, events).stream()
-                .collect(Collectors.groupingBy(ParticipationRequest::getEvent, Collectors.counting()));
-        if (countedRequests.isEmpty()) {
-            return events;
-        }
-        for (Map.Entry<Event, Long> entry : countedRequests.entrySet()) {
-            Event e = entry.getKey();
-            e.setConfirmedRequests(entry.getValue());
-            eventsWithRequests.put(e.getId(), e);
-        }
-        log.info("////eventsWithRequests{}",eventsWithRequests);
-        return new ArrayList<>(eventsWithRequests.values());
-    }
 }
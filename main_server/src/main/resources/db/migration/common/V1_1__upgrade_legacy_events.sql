@@ -0,0 +1,7 @@
+-- в событиях прежнего schema.sql нет счетчиков подтвержденных заявок и просмотров; подтвержденные заявки
+-- пересчитываются по requests, просмотры заполнит синхронизация со stats_server (stats.views.sync-interval)
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE events e
+SET confirmed_requests = (SELECT COUNT(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED');
@@ -0,0 +1,90 @@
+-- таблицы прежнего schema.sql, перенесенные из public миграцией V0_1, не пересоздаются, недостающие столбцы
+-- добавляет V1_1
+CREATE TABLE IF NOT EXISTS users
+(
+    id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name  VARCHAR(255)                            NOT NULL,
+    email VARCHAR(255)                            NOT NULL,
+    CONSTRAINT pk_user PRIMARY KEY (id)
+
+);
+
+
+CREATE TABLE IF NOT EXISTS locations
+(
+    id  BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    lat INTEGER                                 NOT NULL,
+    lon INTEGER                                 NOT NULL,
+    CONSTRAINT pk_location PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS categories
+(
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name VARCHAR(100) UNIQUE                     NOT NULL,
+    CONSTRAINT pk_category PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS compilations
+(
+    id     BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    title  VARCHAR(255)                            NOT NULL,
+    pinned BOOLEAN,
+    CONSTRAINT pk_compilation PRIMARY KEY (id)
+);
+
+
+CREATE TABLE IF NOT EXISTS events
+(
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    annotation         TEXT                                    NOT NULL,
+    category_id        BIGINT                                  NOT NULL,
+    created_on         TIMESTAMP WITHOUT TIME ZONE,
+    description        TEXT,
+    event_date         TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    initiator_id       BIGINT                                  NOT NULL,
+    location_id        BIGINT,
+    paid               BOOLEAN                                 NOT NULL,
+    participant_limit  INTEGER,
+    confirmed_requests BIGINT DEFAULT 0                       NOT NULL,
+    views              BIGINT DEFAULT 0                       NOT NULL,
+    published_on       TIMESTAMP WITHOUT TIME ZONE,
+    request_moderation BOOLEAN,
+    state              VARCHAR(100),
+    title              VARCHAR(255)                            NOT NULL,
+    CONSTRAINT pk_events PRIMARY KEY (id),
+    CONSTRAINT fk_category FOREIGN KEY (category_id) REFERENCES categories (id) ON DELETE CASCADE,
+    CONSTRAINT fk_initiator FOREIGN KEY (initiator_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_location FOREIGN KEY (location_id) REFERENCES locations (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS requests
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    event_id     INTEGER                                 NOT NULL,
+    requester_id INTEGER                                 NOT NULL,
+    created      TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    status       VARCHAR(100)                            NOT NULL,
+    CONSTRAINT pk_request PRIMARY KEY (id),
+    CONSTRAINT fk_request_author FOREIGN KEY (requester_id) REFERENCES users (id),
+    CONSTRAINT fk_request_event FOREIGN KEY (event_id) REFERENCES events (id)
+);
+
+CREATE TABLE IF NOT EXISTS compilations_events
+(
+    compilation_id BIGINT NOT NULL,
+    event_id       BIGINT NOT NULL,
+    CONSTRAINT pk_compilation_ev PRIMARY KEY (compilation_id, event_id),
+    CONSTRAINT fk_compilation_event FOREIGN KEY (compilation_id) REFERENCES compilations (id) ON DELETE CASCADE,
+    CONSTRAINT fk_event_compilation FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS comments
+(
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+    text      VARCHAR(500) NOT NULL,
+    state VARCHAR(50) NOT NULL,
+    event_id  BIGINT REFERENCES events (id) ON DELETE CASCADE,
+    author_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    created   TIMESTAMP WITHOUT TIME ZONE
+);
@@ -0,0 +1,17 @@
+-- поиск администратора по дате без фильтра по состоянию (EventRepository.searchEventsByAdmin*)
+CREATE INDEX IF NOT EXISTS idx_events_event_date ON events (event_date, id);
+-- события пользователя (EventRepository.findAllByInitiatorId)
+CREATE INDEX IF NOT EXISTS idx_events_initiator ON events (initiator_id);
+CREATE INDEX IF NOT EXISTS idx_events_category ON events (category_id);
+
+-- заявки события по статусу (ParticipationRequestRepository.countByEventIdAndStatus, findAllByEventId)
+CREATE INDEX IF NOT EXISTS idx_requests_event_status ON requests (event_id, status);
+-- заявки пользователя и проверка повторной заявки (findAllByRequesterId, findByEventAndRequester)
+CREATE INDEX IF NOT EXISTS idx_requests_requester_event ON requests (requester_id, event_id);
+
+-- комментарии события (CommentRepository.findByStateAndEventId, findByEventId)
+CREATE INDEX IF NOT EXISTS idx_comments_event_state ON comments (event_id, state);
+CREATE INDEX IF NOT EXISTS idx_comments_author ON comments (author_id);
+
+-- подборки с событием, удаление события (первичный ключ начинается с compilation_id)
+CREATE INDEX IF NOT EXISTS idx_compilations_events_event ON compilations_events (event_id);
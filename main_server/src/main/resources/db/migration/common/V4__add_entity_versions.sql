@@ -0,0 +1,12 @@
+-- версии и время изменения для условных запросов (ETag / Last-Modified) публичных эндпоинтов
+ALTER TABLE events ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITHOUT TIME ZONE
+    DEFAULT CURRENT_TIMESTAMP NOT NULL;
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITHOUT TIME ZONE
+    DEFAULT CURRENT_TIMESTAMP NOT NULL;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITHOUT TIME ZONE
+    DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+UPDATE events SET updated_on = COALESCE(published_on, created_on, updated_on);
@@ -0,0 +1,4 @@
+-- публичный поиск: опубликованные события по дате или по просмотрам (EventRepository.searchEvents*),
+-- H2 не поддерживает частичные индексы
+CREATE INDEX IF NOT EXISTS idx_events_state_event_date ON events (state, event_date, id);
+CREATE INDEX IF NOT EXISTS idx_events_state_views ON events (state, views, id);
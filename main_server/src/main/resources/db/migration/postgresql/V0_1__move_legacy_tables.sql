@@ -0,0 +1,21 @@
+-- таблицы прежнего schema.sql (до Flyway) лежат в схеме public: они переносятся в схему сервиса
+-- (spring.flyway.default-schema) вместе с последовательностями и индексами, дальше их дополняют V1 и V1_1.
+-- Таблицы других сервисов в public не трогаются
+DO
+$$
+    DECLARE
+        legacy TEXT;
+    BEGIN
+        IF current_schema() = 'public' THEN
+            RETURN;
+        END IF;
+        FOREACH legacy IN ARRAY ARRAY ['users', 'locations', 'categories', 'compilations', 'events', 'requests',
+            'compilations_events', 'comments']
+            LOOP
+                IF to_regclass(format('public.%I', legacy)) IS NOT NULL
+                    AND to_regclass(format('%I.%I', current_schema(), legacy)) IS NULL THEN
+                    EXECUTE format('ALTER TABLE public.%I SET SCHEMA %I', legacy, current_schema());
+                END IF;
+            END LOOP;
+    END
+$$;
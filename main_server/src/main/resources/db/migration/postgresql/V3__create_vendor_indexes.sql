@@ -0,0 +1,11 @@
+-- публичный поиск: только опубликованные события по дате или по просмотрам (EventRepository.searchEvents*),
+-- частичные индексы не содержат черновиков и отмененных событий
+CREATE INDEX IF NOT EXISTS idx_events_published_event_date ON events (event_date, id) WHERE state = 'PUBLISHED';
+CREATE INDEX IF NOT EXISTS idx_events_published_views ON events (views, id) WHERE state = 'PUBLISHED';
+-- составные индексы из прежнего schema.sql заменены частичными
+DROP INDEX IF EXISTS idx_events_state_event_date;
+DROP INDEX IF EXISTS idx_events_state_views;
+
+-- полнотекстовый поиск по событиям, выражение совпадает с EventSearchPostgreSQLDialect
+CREATE INDEX IF NOT EXISTS idx_events_text_search ON events
+    USING GIN (to_tsvector('russian', coalesce(annotation, '') || ' ' || coalesce(description, '')));
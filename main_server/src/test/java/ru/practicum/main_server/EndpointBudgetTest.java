@@ -0,0 +1,346 @@
+package ru.practicum.main_server;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_server.model.*;
+import ru.practicum.main_server.repository.*;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Бюджеты эндпоинтов: количество SQL-запросов Hibernate, обращений к /stats сервера статистики и время ответа.
+ * Кэши подборок, категорий и просмотров в тесте отключены, поэтому каждый вызов проходит полный путь.
+ * Сервер статистики заменен MockServer, данные - несколько десятков событий с подборками, заявками
+ * и комментариями; изменяющие запросы каждый раз получают свежие заявку, пользователя и событие.
+ * Время - лучшее из нескольких вызовов после прогрева, чтобы не зависеть от пауз GC. По умолчанию оно
+ * проверяется с пятикратным запасом, потому что на медленных машинах CI плавает; с
+ * -Dendpoint-budget.latency=true - по самому бюджету.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:endpoint_budget",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "cache.public-compilations.spec=expireAfterWrite=0s",
+        "cache.public-categories.spec=expireAfterWrite=0s",
+        "stats.views.cache-expire-after-write=0s",
+        "stats.views.sync-interval=PT1H"
+})
+class EndpointBudgetTest {
+    private static final int TIMED_CALLS = 3;
+    private static final int LATENCY_FACTOR = Boolean.getBoolean("endpoint-budget.latency") ? 1 : 5;
+    private static final HttpRequest STATS_REQUEST = request().withMethod("GET").withPath("/stats");
+
+    private static ClientAndServer statsServer;
+
+    @Autowired
+    TestRestTemplate rest;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    CategoryRepository categoryRepository;
+    @Autowired
+    LocationRepository locationRepository;
+    @Autowired
+    EventRepository eventRepository;
+    @Autowired
+    CompilationRepository compilationRepository;
+    @Autowired
+    ParticipationRequestRepository requestRepository;
+    @Autowired
+    CommentRepository commentRepository;
+
+    private Statistics statistics;
+    private Map<String, Long> ids;
+
+    @DynamicPropertySource
+    static void statsServerUrl(DynamicPropertyRegistry registry) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        statsServer = ClientAndServer.startClientAndServer(port);
+        statsServer.when(STATS_REQUEST)
+                .respond(response().withHeader("Content-Type", "application/json").withBody("[]"));
+        statsServer.when(request().withMethod("POST"))
+                .respond(response().withStatusCode(201).withHeader("Content-Type", "application/json").withBody("1"));
+        registry.add("STATS_SERVER_URL", () -> "http://localhost:" + port);
+    }
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ids = new TransactionTemplate(transactionManager).execute(status -> seedData());
+    }
+
+    @AfterAll
+    void stopStatsServer() {
+        statsServer.stop();
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @CsvSource(delimiter = ';', value = {
+            // метод; адрес; SQL-запросов; запросов /stats; мс
+            // связи @ManyToOne ленивые, списки забирают нужные связи entity graph'ом одним запросом;
+            // одиночные событие, категория и подборка - запрос версии для ETag и запрос самой сущности;
+            // страница подборок - айди и версии страницы для ETag, затем айди и подборки с событиями
+            "GET; /events?from=0&size=10; 1; 1; 200",
+            "GET; /events?sort=VIEWS&from=0&size=10; 1; 1; 200",
+            "GET; /events?text=концерт&from=0&size=10; 1; 1; 200",
+            "GET; /events/{event}; 2; 1; 200",
+            "GET; /events/{event}/comments; 1; 0; 200",
+            "GET; /compilations?from=0&size=10; 4; 1; 200",
+            "GET; /compilations/{compilation}; 2; 1; 200",
+            "GET; /categories?from=0&size=10; 2; 0; 200",
+            "GET; /categories/{category}; 2; 0; 200",
+            "GET; /users/{user}/events?from=0&size=10; 2; 1; 200",
+            "GET; /users/{user}/events/{event}; 1; 1; 200",
+            "GET; /users/{user}/events/{event}/requests; 2; 0; 200",
+            "GET; /users/{user}/events/{event}/comments; 1; 0; 200",
+            "GET; /users/{requester}/requests; 1; 0; 200",
+            "GET; /admin/events?from=0&size=10; 1; 1; 200",
+            "GET; /admin/users?ids={user},{requester}; 1; 0; 200",
+            "GET; /admin/comments?state=APPROVED&eventId={event}; 1; 0; 200"
+    })
+    void staysWithinBudget(String method, String path, int maxStatements, int maxStatsCalls, long maxMillis) {
+        checkBudget(method, path, null, () -> ids, maxStatements, maxStatsCalls, maxMillis);
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @CsvSource(delimiter = ';', value = {
+            // метод; адрес; тело; SQL-запросов; запросов /stats; мс
+            // подтверждение заявки увеличивает счетчик события одним условным UPDATE, без блокировки события
+            "POST; /users/{newUser}/requests?eventId={event}; ; 5; 0; 200",
+            "PATCH; /users/{user}/events/{moderatedEvent}/requests/{pendingRequest}/confirm; ; 4; 0; 200",
+            "PATCH; /users/{user}/events/{moderatedEvent}/requests/{pendingRequest}/reject; ; 3; 0; 200",
+            "PATCH; /admin/events/{pendingEvent}/publish; ; 2; 0; 200",
+            "PUT; /admin/events/{event}; {\"title\": \"Концерт {newUser}\"}; 2; 1; 200",
+            "POST; /admin/compilations; {\"title\": \"Подборка\", \"events\": [{event}]}; 3; 0; 200"
+    })
+    void mutationStaysWithinBudget(String method, String path, String body, int maxStatements, int maxStatsCalls,
+                                   long maxMillis) {
+        checkBudget(method, path, body, this::seedFresh, maxStatements, maxStatsCalls, maxMillis);
+    }
+
+    /**
+     * Условный запрос подборок с актуальным ETag отвечает 304 по одному запросу версий (для страницы - еще
+     * запрос айди), не загружая события и не обращаясь к /stats
+     */
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = ';', value = {
+            "/compilations?from=0&size=10; 2",
+            "/compilations/{compilation}; 1"
+    })
+    void notModifiedSkipsBody(String path, int maxStatements) {
+        String url = resolve(path);
+        String etag = rest.getForEntity(url, String.class).getHeaders().getETag();
+
+        statistics.clear();
+        int statsCallsBefore = statsServer.retrieveRecordedRequests(STATS_REQUEST).length;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> response = rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertTrue(statistics.getPrepareStatementCount() <= maxStatements,
+                String.format("%s: SQL-запросов %d, бюджет %d", url, statistics.getPrepareStatementCount(),
+                        maxStatements));
+        assertEquals(statsCallsBefore, statsServer.retrieveRecordedRequests(STATS_REQUEST).length);
+    }
+
+    /**
+     * Прогревочный вызов, вызов с подсчетом SQL-запросов и /stats и несколько вызовов с замером времени.
+     * Данные для каждого вызова готовятся до начала подсчета.
+     *
+     * @param fixtures айди для подстановки в адрес и тело, для изменяющих запросов - свежие на каждый вызов
+     */
+    private void checkBudget(String method, String path, String body, Supplier<Map<String, Long>> fixtures,
+                             int maxStatements, int maxStatsCalls, long maxMillis) {
+        call(method, path, body, fixtures.get());
+
+        Map<String, Long> measured = fixtures.get();
+        statistics.clear();
+        int statsCallsBefore = statsServer.retrieveRecordedRequests(STATS_REQUEST).length;
+        String url = call(method, path, body, measured);
+        long statements = statistics.getPrepareStatementCount();
+        int statsCalls = statsServer.retrieveRecordedRequests(STATS_REQUEST).length - statsCallsBefore;
+
+        long bestMillis = Long.MAX_VALUE;
+        for (int i = 0; i < TIMED_CALLS; i++) {
+            Map<String, Long> timed = fixtures.get();
+            long start = System.nanoTime();
+            call(method, path, body, timed);
+            bestMillis = Math.min(bestMillis, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        assertTrue(statements <= maxStatements,
+                String.format("%s %s: SQL-запросов %d, бюджет %d", method, url, statements, maxStatements));
+        assertTrue(statsCalls <= maxStatsCalls,
+                String.format("%s %s: запросов /stats %d, бюджет %d", method, url, statsCalls, maxStatsCalls));
+        assertTrue(bestMillis <= maxMillis * LATENCY_FACTOR,
+                String.format("%s %s: %d мс, бюджет %d мс", method, url, bestMillis, maxMillis * LATENCY_FACTOR));
+    }
+
+    private String call(String method, String path, String body, Map<String, Long> fixtures) {
+        String url = resolve(path, fixtures);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> request = body == null ? null : new HttpEntity<>(resolve(body, fixtures), headers);
+        ResponseEntity<String> response = rest.exchange(url, HttpMethod.valueOf(method), request, String.class);
+        assertEquals(200, response.getStatusCodeValue(), () -> url + ": " + response.getBody());
+        return url;
+    }
+
+    private String resolve(String path) {
+        return resolve(path, ids);
+    }
+
+    private static String resolve(String path, Map<String, Long> fixtures) {
+        String url = path;
+        for (Map.Entry<String, Long> id : fixtures.entrySet()) {
+            url = url.replace("{" + id.getKey() + "}", String.valueOf(id.getValue()));
+        }
+        return url;
+    }
+
+    /**
+     * Свежие данные для изменяющего запроса: новый пользователь, его заявка на событие с модерацией
+     * и новое событие, ожидающее публикации
+     */
+    private Map<String, Long> seedFresh() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            long n = userRepository.count() + 1;
+            User requester = userRepository.save(User.builder().name("user" + n).email("user" + n + "@mail.ru")
+                    .build());
+            Event moderated = eventRepository.getReferenceById(ids.get("moderatedEvent"));
+            ParticipationRequest request = requestRepository.save(ParticipationRequest.builder()
+                    .event(moderated)
+                    .requester(requester)
+                    .status(Status.PENDING)
+                    .created(now)
+                    .build());
+            Event pending = eventRepository.save(Event.builder()
+                    .annotation("Большой концерт под открытым небом на модерации")
+                    .description("Описание концерта в парке, ожидающего публикации")
+                    .title("Концерт на модерации")
+                    .category(categoryRepository.getReferenceById(ids.get("category")))
+                    .initiator(userRepository.getReferenceById(ids.get("user")))
+                    .location(locationRepository.save(Location.builder().lat(55).lon(37).build()))
+                    .createdOn(now)
+                    .eventDate(now.plusDays(10))
+                    .participantLimit(0L)
+                    .requestModeration(true)
+                    .state(State.PENDING)
+                    .confirmedRequests(0L)
+                    .build());
+            Map<String, Long> fixtures = new HashMap<>(ids);
+            fixtures.put("newUser", requester.getId());
+            fixtures.put("pendingRequest", request.getId());
+            fixtures.put("pendingEvent", pending.getId());
+            return fixtures;
+        });
+    }
+
+    /**
+     * 20 пользователей, 5 категорий, 60 опубликованных событий трех инициаторов, 6 подборок по 10 событий,
+     * подтвержденные заявки и одобренные комментарии к событиям первого инициатора; одно из его событий
+     * с модерацией заявок
+     */
+    private Map<String, Long> seedData() {
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            users.add(userRepository.save(User.builder().name("user" + i).email("user" + i + "@mail.ru").build()));
+        }
+        List<Category> categories = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            categories.add(categoryRepository.save(Category.builder().name("category" + i).build()));
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 1; i <= 60; i++) {
+            Location location = locationRepository.save(Location.builder().lat(55 + i / 100f).lon(37).build());
+            events.add(eventRepository.save(Event.builder()
+                    .annotation("Большой концерт под открытым небом номер " + i)
+                    .description("Описание концерта в парке, вход свободный, номер " + i)
+                    .title("Концерт " + i)
+                    .category(categories.get(i % categories.size()))
+                    .initiator(users.get(i % 3))
+                    .location(location)
+                    .createdOn(now.minusDays(10))
+                    .publishedOn(now.minusDays(9))
+                    .eventDate(now.plusDays(i))
+                    .participantLimit(0L)
+                    .requestModeration(false)
+                    .state(State.PUBLISHED)
+                    .confirmedRequests(0L)
+                    .build()));
+        }
+        List<Compilation> compilations = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            compilations.add(compilationRepository.save(Compilation.builder()
+                    .title("Подборка " + i)
+                    .pinned(i % 2 == 0)
+                    .events(new ArrayList<>(events.subList(i * 10, i * 10 + 10)))
+                    .build()));
+        }
+        Event event = events.get(2);
+        for (User requester : users.subList(3, users.size())) {
+            requestRepository.save(ParticipationRequest.builder()
+                    .event(event)
+                    .requester(requester)
+                    .status(Status.CONFIRMED)
+                    .created(now.minusDays(1))
+                    .build());
+            commentRepository.save(new Comment(null, "Отличный концерт", event, requester, now.minusHours(1),
+                    CommentState.APPROVED));
+        }
+        event.setConfirmedRequests((long) users.size() - 3);
+        Event moderated = events.get(5);
+        moderated.setRequestModeration(true);
+        return Map.of(
+                "moderatedEvent", moderated.getId(),
+                "user", event.getInitiator().getId(),
+                "requester", users.get(3).getId(),
+                "event", event.getId(),
+                "category", categories.get(0).getId(),
+                "compilation", compilations.get(0).getId());
+    }
+}
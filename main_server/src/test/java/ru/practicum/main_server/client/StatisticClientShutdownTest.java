@@ -0,0 +1,92 @@
+package ru.practicum.main_server.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import ru.practicum.main_server.model.dto.EndpointHitDto;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Остановка клиента при разомкнутом circuit breaker: просмотры из очереди отправляются последней попыткой
+ * в обход него, а если сервер статистики не отвечает - учитываются как отброшенные
+ */
+class StatisticClientShutdownTest {
+    private static final HttpRequest HITS_REQUEST = request().withMethod("POST").withPath("/hits");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClientAndServer statsServer;
+    private StatisticClient client;
+
+    @BeforeEach
+    void openCircuit() throws InterruptedException {
+        statsServer = ClientAndServer.startClientAndServer(0);
+        statsServer.when(HITS_REQUEST).respond(response().withStatusCode(500));
+        StatisticClientProperties properties = new StatisticClientProperties();
+        properties.getHits().setFlushSize(2);
+        properties.getHits().setFlushInterval(Duration.ofHours(1));
+        properties.getCircuitBreaker().setFailureThreshold(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofHours(1));
+        client = new StatisticClient("http://localhost:" + statsServer.getPort(), new RestTemplateBuilder(),
+                properties, meterRegistry);
+
+        client.createHit(hit(1));
+        client.createHit(hit(2));
+        for (int i = 0; i < 100 && meterRegistry.counter("stats.client.hits.failed").count() < 2; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(2, meterRegistry.counter("stats.client.hits.failed").count());
+        for (int i = 3; i <= 5; i++) {
+            client.createHit(hit(i));
+        }
+    }
+
+    @AfterEach
+    void stopStatsServer() {
+        statsServer.stop();
+    }
+
+    @Test
+    void sendsQueuedHitsBypassingOpenCircuit() throws InterruptedException {
+        statsServer.reset();
+        statsServer.when(HITS_REQUEST).respond(response().withStatusCode(201)
+                .withHeader("Content-Type", "application/json").withBody("2"));
+
+        client.shutdown();
+
+        assertEquals(2, statsServer.retrieveRecordedRequests(HITS_REQUEST).length);
+        assertEquals(0, dropped());
+    }
+
+    @Test
+    void countsUnsentHitsAsDropped() throws InterruptedException {
+        int requestsBefore = statsServer.retrieveRecordedRequests(HITS_REQUEST).length;
+
+        client.shutdown();
+
+        assertEquals(3, dropped());
+        assertTrue(statsServer.retrieveRecordedRequests(HITS_REQUEST).length <= requestsBefore + 1);
+    }
+
+    private double dropped() {
+        return meterRegistry.counter("stats.client.hits", "outcome", "dropped").count();
+    }
+
+    private static EndpointHitDto hit(int id) {
+        return EndpointHitDto.builder()
+                .app("main_server")
+                .uri("/events/" + id)
+                .ip("10.0.0.1")
+                .timestamp("2026-09-01 12:00:00")
+                .build();
+    }
+}
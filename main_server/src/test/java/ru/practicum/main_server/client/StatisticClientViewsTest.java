@@ -0,0 +1,45 @@
+package ru.practicum.main_server.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.verify.VerificationTimes;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import ru.practicum.main_server.model.Event;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Просмотры события считаются с его создания, а не за последние stats.views.window-days дней
+ */
+class StatisticClientViewsTest {
+    private static final HttpRequest STATS_REQUEST = request().withMethod("GET").withPath("/stats");
+
+    private final ClientAndServer statsServer = ClientAndServer.startClientAndServer(0);
+    private final StatisticClient client = new StatisticClient("http://localhost:" + statsServer.getPort(),
+            new RestTemplateBuilder(), new StatisticClientProperties(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void stopStatsServer() {
+        statsServer.stop();
+    }
+
+    @Test
+    void countsViewsSinceEventCreation() {
+        statsServer.when(STATS_REQUEST).respond(response().withHeader("Content-Type", "application/json")
+                .withBody("[]"));
+        Event event = Event.builder().id(7L).createdOn(LocalDateTime.of(2020, 3, 1, 10, 0)).build();
+
+        assertEquals(0, client.getViewsSingleEvent(event));
+
+        // двоеточия в start клиент передает закодированными
+        statsServer.verify(request().withMethod("GET").withPath("/stats")
+                .withQueryStringParameter("start", "2020-03-01 10(:|%3A)00(:|%3A)00"), VerificationTimes.exactly(1));
+    }
+}
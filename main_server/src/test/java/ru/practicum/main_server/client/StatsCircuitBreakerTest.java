@@ -0,0 +1,114 @@
+package ru.practicum.main_server.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.main_server.exception.StatsUnavailableException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatsCircuitBreakerTest {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock();
+    private final StatsCircuitBreaker breaker = new StatsCircuitBreaker(2, OPEN_DURATION, clock);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void opensAfterThresholdAndClosesAfterSuccessfulProbe() {
+        open();
+        assertThrows(StatsUnavailableException.class, () -> breaker.call(succeeding()));
+        assertEquals(2, calls.get());
+
+        clock.advance(OPEN_DURATION);
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.isCallPermitted());
+        assertEquals(StatsCircuitBreaker.State.OPEN, breaker.getState());
+
+        assertEquals("ok", breaker.call(succeeding()));
+        assertEquals(StatsCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals("ok", breaker.call(succeeding()));
+    }
+
+    @Test
+    void failedProbeReopens() {
+        open();
+        clock.advance(OPEN_DURATION);
+
+        assertThrows(StatsUnavailableException.class, () -> breaker.call(() -> {
+            throw new IllegalStateException("timeout");
+        }));
+        assertEquals(StatsCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+
+        clock.advance(OPEN_DURATION);
+        assertEquals("ok", breaker.call(succeeding()));
+        assertEquals(StatsCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void onlyOneProbeWhileHalfOpen() {
+        open();
+        clock.advance(OPEN_DURATION);
+
+        StatsUnavailableException rejected = breaker.call(() -> {
+            assertEquals(StatsCircuitBreaker.State.HALF_OPEN, breaker.getState());
+            assertFalse(breaker.isCallPermitted());
+            return assertThrows(StatsUnavailableException.class, () -> breaker.call(succeeding()));
+        });
+        assertNull(rejected.getCause());
+        assertEquals(StatsCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void open() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(StatsUnavailableException.class, () -> breaker.call(() -> {
+                calls.incrementAndGet();
+                throw new ResourceAccessException("connection refused");
+            }));
+        }
+        assertEquals(StatsCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    private Supplier<String> succeeding() {
+        return () -> {
+            calls.incrementAndGet();
+            return "ok";
+        };
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-10-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
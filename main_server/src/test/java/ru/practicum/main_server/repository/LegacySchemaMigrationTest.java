@@ -0,0 +1,104 @@
+package ru.practicum.main_server.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Миграции на встроенном PostgreSQL: база, созданная прежним schema.sql, и общая со stats_server база,
+ * в которой stats_server уже создал свои таблицы, приходят к одной схеме main_server.
+ */
+class LegacySchemaMigrationTest {
+    static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.execute("CREATE DATABASE legacy");
+        jdbcTemplate.execute("CREATE DATABASE shared");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void legacyTablesAreMovedAndUpgraded() throws SQLException {
+        DataSource dataSource = postgres.getDatabase("postgres", "legacy");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/legacy/schema.sql"));
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE stats (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('u1', 'u1@mail.ru'), ('u2', 'u2@mail.ru')");
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('c1')");
+        jdbcTemplate.update("INSERT INTO events " +
+                "(annotation, category_id, event_date, initiator_id, paid, state, title) VALUES ('a', 1, '2026-12-01 10:00:00', 1, false, 'PUBLISHED', 't1'), " +
+                "('a', 1, '2026-12-01 10:00:00', 1, false, 'PUBLISHED', 't2')");
+        jdbcTemplate.update("INSERT INTO requests (event_id, requester_id, created, status) VALUES " +
+                "(1, 1, now(), 'CONFIRMED'), (1, 2, now(), 'CONFIRMED'), (2, 2, now(), 'PENDING')");
+
+        migrate(dataSource);
+
+        assertEquals(List.of("1|2|0", "2|0|0"), jdbcTemplate.queryForList("SELECT id || '|' || confirmed_requests " +
+                "|| '|' || views FROM main_server.events ORDER BY id", String.class));
+        assertNull(relkind(jdbcTemplate, "public.events"));
+        assertEquals("r", relkind(jdbcTemplate, "public.stats"));
+        assertEquals("i", relkind(jdbcTemplate, "main_server.idx_events_published_views"));
+        assertEquals(3, jdbcTemplate.queryForObject("INSERT INTO main_server.users (name, email) " +
+                "VALUES ('u3', 'u3@mail.ru') RETURNING id", Long.class));
+    }
+
+    @Test
+    void sharedDatabaseKeepsSchemasApart() {
+        DataSource dataSource = postgres.getDatabase("postgres", "shared");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("stats_server")
+                .table("stats_schema_history")
+                .locations("filesystem:../stats_server/src/main/resources/db/migration/common",
+                        "filesystem:../stats_server/src/main/resources/db/migration/postgresql")
+                .load()
+                .migrate();
+
+        migrate(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertEquals("p", relkind(jdbcTemplate, "stats_server.stats"));
+        assertEquals("i", relkind(jdbcTemplate, "main_server.idx_events_event_date"));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT max(installed_rank) FROM main_server.flyway_schema_history " +
+                "WHERE version = '1' AND success", Integer.class));
+    }
+
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("main_server")
+                .defaultSchema("main_server")
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+    }
+
+    private static String relkind(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT (SELECT relkind FROM pg_class WHERE oid = to_regclass(?))::text",
+                String.class, table);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.main_server.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет по EXPLAIN на встроенном PostgreSQL, что запросы репозиториев идут по индексам из db/migration.
+ * Последовательное сканирование отключено, чтобы план не зависел от объема тестовых данных
+ */
+class SchemaIndexExplainTest {
+    static EmbeddedPostgres postgres;
+    static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "SELECT * FROM events e WHERE e.state = 'PUBLISHED' AND e.event_date > now()"
+                    + " ORDER BY e.event_date, e.id LIMIT 10 ; idx_events_published_event_date",
+            "SELECT * FROM events e WHERE e.state = 'PUBLISHED' AND (e.views, e.id) > (5, 1)"
+                    + " ORDER BY e.views, e.id LIMIT 10 ; idx_events_published_views",
+            "SELECT * FROM events e WHERE (to_tsvector('russian',"
+                    + " coalesce(e.annotation, '') || ' ' || coalesce(e.description, ''))"
+                    + " @@ plainto_tsquery('russian', 'концерт')) ; idx_events_text_search",
+            "SELECT * FROM events e WHERE e.event_date > now() ORDER BY e.event_date, e.id LIMIT 10"
+                    + " ; idx_events_event_date",
+            "SELECT * FROM events e WHERE e.initiator_id = 1 ; idx_events_initiator",
+            "SELECT count(*) FROM requests r WHERE r.event_id = 1 AND r.status = 'CONFIRMED'"
+                    + " ; idx_requests_event_status",
+            "SELECT * FROM requests r WHERE r.requester_id = 1 ; idx_requests_requester_event",
+            "SELECT * FROM requests r WHERE r.event_id = 1 AND r.requester_id = 2 ; idx_requests_requester_event",
+            "SELECT * FROM comments c WHERE c.state = 'PUBLISHED' AND c.event_id = 1 ; idx_comments_event_state",
+            "SELECT * FROM compilations_events ce WHERE ce.event_id = 1 ; idx_compilations_events_event"
+    })
+    void queryUsesIndex(String query, String index) {
+        String plan = jdbcTemplate.execute((StatementCallback<String>) statement -> {
+            statement.execute("SET enable_seqscan = off");
+            try (ResultSet resultSet = statement.executeQuery("EXPLAIN " + query)) {
+                StringBuilder lines = new StringBuilder();
+                while (resultSet.next()) {
+                    lines.append(resultSet.getString(1)).append('\n');
+                }
+                return lines.toString();
+            }
+        });
+        assertTrue(plan.contains(index), () -> "ожидался индекс " + index + ", план:\n" + plan);
+    }
+}
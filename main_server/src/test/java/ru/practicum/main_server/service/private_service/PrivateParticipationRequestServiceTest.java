@@ -0,0 +1,74 @@
+package ru.practicum.main_server.service.private_service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.main_server.exception.NotFoundException;
+import ru.practicum.main_server.model.*;
+import ru.practicum.main_server.model.dto.ParticipationRequestDto;
+import ru.practicum.main_server.repository.CategoryRepository;
+import ru.practicum.main_server.repository.EventRepository;
+import ru.practicum.main_server.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class PrivateParticipationRequestServiceTest {
+    @Autowired
+    PrivateParticipationRequestService service;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    CategoryRepository categoryRepository;
+    @Autowired
+    EventRepository eventRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void requestOfAnotherEventIsNotModerated() {
+        User initiator = userRepository.save(User.builder().name("initiator").email("initiator@mail.ru").build());
+        User requester = userRepository.save(User.builder().name("requester").email("requester@mail.ru").build());
+        Category category = categoryRepository.save(Category.builder().name("moderation").build());
+        Event first = eventRepository.save(event(initiator, category));
+        Event second = eventRepository.save(event(initiator, category));
+        ParticipationRequestDto request = service.createParticipationRequest(requester.getId(), second.getId());
+
+        assertThrows(NotFoundException.class, () ->
+                service.approveParticipationRequest(initiator.getId(), first.getId(), request.getId()));
+        assertThrows(NotFoundException.class, () ->
+                service.rejectParticipationRequest(initiator.getId(), first.getId(), request.getId()));
+        assertEquals(0, confirmedRequests(first));
+        assertEquals(0, confirmedRequests(second));
+
+        service.approveParticipationRequest(initiator.getId(), second.getId(), request.getId());
+        assertEquals(1, confirmedRequests(second));
+        service.cancelRequest(requester.getId(), request.getId());
+        assertEquals(0, confirmedRequests(first));
+        assertEquals(0, confirmedRequests(second));
+    }
+
+    private long confirmedRequests(Event event) {
+        return jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class,
+                event.getId());
+    }
+
+    private static Event event(User initiator, Category category) {
+        return Event.builder()
+                .annotation("Концерт с модерацией заявок")
+                .title("Концерт")
+                .category(category)
+                .initiator(initiator)
+                .createdOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(10))
+                .participantLimit(0L)
+                .requestModeration(true)
+                .state(State.PUBLISHED)
+                .build();
+    }
+}
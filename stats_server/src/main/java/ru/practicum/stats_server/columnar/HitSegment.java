@@ -0,0 +1,187 @@
+package ru.practicum.stats_server.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Сегмент просмотров фиксированной емкости в memory-mapped файле. После заголовка колонки лежат подряд:
+ * app (int, id словаря), uri (int, id словаря), ip (int), ipKind (byte), timestamp (int, секунды эпохи UTC
+ * без знака). Запись занимает 17 байт. Значения колонок пишутся раньше счетчика записей в заголовке,
+ * поэтому после падения процесса сегмент содержит только целые записи. Минимальное и максимальное время
+ * в заголовке позволяют пропускать сегменты, не пересекающие интервал запроса.
+ */
+public class HitSegment implements Closeable {
+    /**
+     * ip - адрес IPv4
+     */
+    public static final byte IP_V4 = 0;
+    /**
+     * ip - id в словаре адресов
+     */
+    public static final byte IP_DICTIONARY = 1;
+
+    private static final int MAGIC = 0x48495453;
+    private static final int HEADER_SIZE = 64;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int MIN_TIME_OFFSET = 16;
+    private static final int MAX_TIME_OFFSET = 24;
+    private static final int SCAN_CHUNK = 4096;
+
+    private final int index;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int appOffset;
+    private final int uriOffset;
+    private final int ipOffset;
+    private final int ipKindOffset;
+    private final int timeOffset;
+    private volatile int count;
+    private volatile long minTime;
+    private volatile long maxTime;
+
+    private HitSegment(int index, Path file, int capacity, boolean create) throws IOException {
+        this.index = index;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (create) {
+            this.capacity = capacity;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("файл " + file + " не является сегментом просмотров");
+            }
+            this.capacity = header.getInt(CAPACITY_OFFSET);
+        }
+        this.appOffset = HEADER_SIZE;
+        this.uriOffset = appOffset + Integer.BYTES * this.capacity;
+        this.ipOffset = uriOffset + Integer.BYTES * this.capacity;
+        this.ipKindOffset = ipOffset + Integer.BYTES * this.capacity;
+        this.timeOffset = ipKindOffset + this.capacity;
+        long size = timeOffset + (long) Integer.BYTES * this.capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (create) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(CAPACITY_OFFSET, this.capacity);
+            buffer.putLong(MIN_TIME_OFFSET, Long.MAX_VALUE);
+            buffer.putLong(MAX_TIME_OFFSET, Long.MIN_VALUE);
+        }
+        this.count = buffer.getInt(COUNT_OFFSET);
+        this.minTime = buffer.getLong(MIN_TIME_OFFSET);
+        this.maxTime = buffer.getLong(MAX_TIME_OFFSET);
+    }
+
+    public static HitSegment create(int index, Path file, int capacity) throws IOException {
+        return new HitSegment(index, file, capacity, true);
+    }
+
+    public static HitSegment open(int index, Path file) throws IOException {
+        return new HitSegment(index, file, 0, false);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * Дописывает просмотр. Вызывается из одного потока записи.
+     *
+     * @param time секунды эпохи UTC, от 0 до 2^32 - 1
+     * @return номер записи в сегменте
+     */
+    public int append(int app, int uri, int ip, byte ipKind, long time) {
+        int position = count;
+        if (position == capacity) {
+            throw new IllegalStateException("сегмент " + index + " заполнен");
+        }
+        buffer.putInt(appOffset + Integer.BYTES * position, app);
+        buffer.putInt(uriOffset + Integer.BYTES * position, uri);
+        buffer.putInt(ipOffset + Integer.BYTES * position, ip);
+        buffer.put(ipKindOffset + position, ipKind);
+        buffer.putInt(timeOffset + Integer.BYTES * position, (int) time);
+        if (time < minTime) {
+            minTime = time;
+            buffer.putLong(MIN_TIME_OFFSET, time);
+        }
+        if (time > maxTime) {
+            maxTime = time;
+            buffer.putLong(MAX_TIME_OFFSET, time);
+        }
+        buffer.putInt(COUNT_OFFSET, position + 1);
+        count = position + 1;
+        return position;
+    }
+
+    /**
+     * Передает consumer записи с timestamp в [from, to) и uri из uris. Колонки времени и uri читаются
+     * пачками в массивы, остальные колонки - только для подошедших записей.
+     *
+     * @param uris id адресов или null для всех адресов
+     */
+    public void scan(long from, long to, BitSet uris, HitConsumer consumer) {
+        int total = count;
+        if (total == 0 || maxTime < from || minTime >= to) {
+            return;
+        }
+        IntBuffer times = slice(timeOffset);
+        IntBuffer uriIds = slice(uriOffset);
+        int[] timeChunk = new int[SCAN_CHUNK];
+        int[] uriChunk = new int[SCAN_CHUNK];
+        for (int start = 0; start < total; start += SCAN_CHUNK) {
+            int length = Math.min(SCAN_CHUNK, total - start);
+            times.get(timeChunk, 0, length);
+            uriIds.get(uriChunk, 0, length);
+            for (int i = 0; i < length; i++) {
+                long time = Integer.toUnsignedLong(timeChunk[i]);
+                if (time < from || time >= to || (uris != null && !uris.get(uriChunk[i]))) {
+                    continue;
+                }
+                int position = start + i;
+                consumer.accept(position, buffer.getInt(appOffset + Integer.BYTES * position), uriChunk[i],
+                        buffer.getInt(ipOffset + Integer.BYTES * position), buffer.get(ipKindOffset + position),
+                        time);
+            }
+        }
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private IntBuffer slice(int offset) {
+        ByteBuffer column = buffer.duplicate();
+        column.position(offset);
+        return column.slice().asIntBuffer();
+    }
+
+    /**
+     * Получатель подошедших записей сегмента
+     */
+    @FunctionalInterface
+    public interface HitConsumer {
+        void accept(int position, int app, int uri, int ip, byte ipKind, long time);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.stats_server.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Словарь строк (app, uri, ip не в формате IPv4) с постоянными id. id строки - ее порядковый номер в файле,
+ * файл состоит из записей [длина UTF-8 (int)][байты UTF-8] и только дописывается. Недописанная после
+ * падения процесса запись в конце файла отбрасывается при открытии.
+ */
+public class StringDictionary implements Closeable {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final FileChannel channel;
+
+    public StringDictionary(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (content.remaining() >= Integer.BYTES) {
+            int length = content.getInt(content.position());
+            if (length < 0 || content.remaining() < Integer.BYTES + length) {
+                break;
+            }
+            content.position(content.position() + Integer.BYTES);
+            byte[] bytes = new byte[length];
+            content.get(bytes);
+            register(new String(bytes, StandardCharsets.UTF_8));
+        }
+        channel.truncate(content.position());
+        channel.position(content.position());
+    }
+
+    /**
+     * @param value строка
+     * @return id строки, новая строка дописывается в словарь
+     */
+    public synchronized int idOf(String value) throws IOException {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        record.putInt(bytes.length).put(bytes).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        return register(value);
+    }
+
+    /**
+     * @param value строка
+     * @return id строки или -1, если ее нет в словаре
+     */
+    public synchronized int find(String value) {
+        return ids.getOrDefault(value, -1);
+    }
+
+    public synchronized String valueOf(int id) {
+        return values.get(id);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private int register(String value) {
+        int id = values.size();
+        values.add(value);
+        ids.put(value, id);
+        return id;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.stats_server.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.stats_server.service.RollupRebuildService;
+
+import java.time.LocalDateTime;
+
+@RestController
+@Slf4j
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class RollupController {
+    private final RollupRebuildService rebuildService;
+
+    @Autowired
+    public RollupController(RollupRebuildService rebuildService) {
+        this.rebuildService = rebuildService;
+    }
+
+    /**
+     * Пересчет предагрегированной статистики за интервал по сырым просмотрам
+     *
+     * @return количество пересчитанных дней
+     */
+    @PostMapping("/rollups/rebuild")
+    public int rebuild(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                       @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end) {
+        log.info(":::POST /rollups/rebuild RollupController: пересчет статистики start={}, end={}", start, end);
+        return rebuildService.rebuild(start, end);
+    }
+}
@@ -3,15 +3,26 @@ package ru.practicum.stats_server.controller;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.stats_server.dto.EndpointHitDto;
+import ru.practicum.stats_server.dto.ExportFormat;
 import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.exception.BadRequestException;
 import ru.practicum.stats_server.service.StatisticService;
+import ru.practicum.stats_server.service.StatisticService.TimeRange;
 
+import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
 import java.util.List;
 
 @RestController
+@Validated
 @Slf4j
 public class StatisticController {
     private final StatisticService statisticService;
@@ -27,13 +38,55 @@ public class StatisticController {
         return statisticService.addHit(endpointHit);
     }
 
+    @PostMapping("/hits")
+    public int createHits(@RequestBody List<@Valid EndpointHitDto> endpointHits) {
+        log.info(":::POST /hits StatisticController: создание пачки просмотров, size={}", endpointHits.size());
+        return statisticService.addHits(endpointHits);
+    }
+
     @SneakyThrows
     @GetMapping("/stats")
     public List<ViewStats> getViewStats(@RequestParam String start,
                                         @RequestParam String end,
                                         @RequestParam List<String> uris,
-                                        @RequestParam(defaultValue = "false") Boolean unique) {
+                                        @RequestParam(defaultValue = "false") Boolean unique,
+                                        @RequestParam(defaultValue = "false") Boolean exact) {
         log.info(":::GET /stats StatisticController: получение статистики по адресам: {}, start={}, end={}", uris, start, end);
-        return statisticService.getViewStats(start, end, uris, unique);
+        return statisticService.getViewStats(start, end, uris, unique, exact);
+    }
+
+    /**
+     * Выгрузка сырых просмотров за интервал. Интервал проверяется до ответа (400 при ошибке), сам ответ пишется
+     * потоком в отдельном потоке обработки запроса; при Accept-Encoding: gzip сжимается сервером
+     * (server.compression).
+     */
+    @SneakyThrows
+    @GetMapping("/hits/export")
+    public ResponseEntity<StreamingResponseBody> exportHits(@RequestParam String start,
+                                                            @RequestParam String end,
+                                                            @RequestParam(required = false) String app,
+                                                            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        log.info(":::GET /hits/export StatisticController: выгрузка просмотров app={}, start={}, end={}, format={}",
+                app, start, end, format);
+        TimeRange range = statisticService.decodeRange(start, end);
+        StreamingResponseBody body = out -> statisticService.exportHits(range, app, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=hits." + format.getExtension())
+                .body(body);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleBadRequest(BadRequestException e) {
+        log.warn(":::StatisticController: {}", e.getMessage());
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleConstraintViolation(ConstraintViolationException e) {
+        log.warn(":::StatisticController: некорректная пачка просмотров: {}", e.getMessage());
+        return e.getMessage();
     }
 }
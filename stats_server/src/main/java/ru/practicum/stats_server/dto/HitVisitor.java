@@ -0,0 +1,9 @@
+package ru.practicum.stats_server.dto;
+
+public interface HitVisitor {
+    String getApp();
+
+    String getUri();
+
+    String getIp();
+}
@@ -1,10 +1,14 @@
 package ru.practicum.stats_server.dto;
 
-
-public interface ViewStats {
-    String getApp();
-
-    String getUri();
-
-    int getHits();
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewStats {
+    private String app;
+    private String uri;
+    private long hits;
 }
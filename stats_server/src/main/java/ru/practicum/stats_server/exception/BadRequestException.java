@@ -0,0 +1,11 @@
+package ru.practicum.stats_server.exception;
+
+/**
+ * Исключение для 400 ошибки
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.stats_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR: сохранение просмотров вместе с бакетами и скетчами уникальных посетителей.
+ */
+@Name("ru.practicum.stats_server.HitIngest")
+@Label("Hit Ingest")
+@Description("Сохранение просмотров")
+@Category({"Explore With Me", "Stats Server"})
+@StackTrace(false)
+public class HitIngestEvent extends Event {
+    @Label("Endpoint")
+    @Description("single или batch")
+    private String endpoint;
+
+    @Label("Hits")
+    @Description("Количество просмотров")
+    private int hits;
+
+    public static HitIngestEvent start(String endpoint, int hits) {
+        HitIngestEvent event = new HitIngestEvent();
+        event.endpoint = endpoint;
+        event.hits = hits;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.stats_server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR: подсчет просмотров по запросу /stats.
+ */
+@Name("ru.practicum.stats_server.StatsQuery")
+@Label("Stats Query")
+@Description("Подсчет просмотров по запросу /stats")
+@Category({"Explore With Me", "Stats Server"})
+@StackTrace(false)
+public class StatsQueryEvent extends Event {
+    @Label("Window")
+    @Description("Длина интервала запроса")
+    @Timespan(Timespan.SECONDS)
+    private long window;
+
+    @Label("Uris")
+    @Description("Количество адресов в запросе, 0 - все адреса")
+    private int uris;
+
+    @Label("Mode")
+    @Description("rollup, sketch или exact")
+    private String mode;
+
+    @Label("Rows")
+    @Description("Количество строк ответа")
+    private int rows;
+
+    public static StatsQueryEvent start(long windowSeconds, int uris, String mode) {
+        StatsQueryEvent event = new StatsQueryEvent();
+        event.window = windowSeconds;
+        event.uris = uris;
+        event.mode = mode;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+}
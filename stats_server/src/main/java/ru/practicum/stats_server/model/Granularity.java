@@ -0,0 +1,36 @@
+package ru.practicum.stats_server.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Размер временного бакета предагрегированной статистики: MINUTE, HOUR, DAY
+ */
+public enum Granularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @param time момент времени
+     * @return начало бакета, в который попадает time
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * @param time момент времени
+     * @return ближайшая граница бакета, не раньше time
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime truncated = truncate(time);
+        return truncated.equals(time) ? time : truncated.plus(1, unit);
+    }
+}
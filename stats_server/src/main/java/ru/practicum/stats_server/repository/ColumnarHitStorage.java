@@ -0,0 +1,279 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.columnar.HitSegment;
+import ru.practicum.stats_server.columnar.StringDictionary;
+import ru.practicum.stats_server.dto.HitVisitor;
+import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.exception.BadRequestException;
+import ru.practicum.stats_server.model.EndpointHit;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Просмотры в append-only колоночных сегментах на диске (stats.storage.engine=columnar). app и uri хранятся
+ * как id словарей, ip - как int, время - как секунды эпохи; запись занимает 17 байт. Запросы /stats
+ * сканируют колонки сегментов, пересекающих интервал, и агрегируют в памяти.
+ * Записанное попадает в page cache сразу, на диск - при заполнении сегмента и остановке сервера.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "columnar")
+public class ColumnarHitStorage implements HitStorage {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.hits");
+    private static final int MAX_SEGMENT_CAPACITY = (Integer.MAX_VALUE - 64) / 17;
+    private static final long MAX_TIME = 0xFFFFFFFFL;
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final StringDictionary apps;
+    private final StringDictionary uris;
+    private final StringDictionary ips;
+    private final List<HitSegment> segments = new CopyOnWriteArrayList<>();
+
+    public ColumnarHitStorage(@Value("${stats.storage.columnar.directory:data/hits}") String directory,
+                              @Value("${stats.storage.columnar.segment-capacity:1048576}") int segmentCapacity)
+            throws IOException {
+        if (segmentCapacity <= 0 || segmentCapacity > MAX_SEGMENT_CAPACITY) {
+            throw new IllegalArgumentException("stats.storage.columnar.segment-capacity должна быть от 1 до "
+                    + MAX_SEGMENT_CAPACITY);
+        }
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.segmentCapacity = segmentCapacity;
+        this.apps = new StringDictionary(this.directory.resolve("apps.dict"));
+        this.uris = new StringDictionary(this.directory.resolve("uris.dict"));
+        this.ips = new StringDictionary(this.directory.resolve("ips.dict"));
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(HitSegment.open(Integer.parseInt(matcher.group(1)), file));
+                }
+            }
+        }
+        log.info("ColumnarHitStorage: открыто сегментов {} в {}", segments.size(), this.directory);
+    }
+
+    @Override
+    public synchronized EndpointHit save(EndpointHit hit) {
+        hit.setId(append(hit));
+        return hit;
+    }
+
+    @Override
+    public synchronized int saveAll(List<EndpointHit> hits) {
+        hits.forEach(this::validate);
+        hits.forEach(this::append);
+        return hits.size();
+    }
+
+    @Override
+    public void validate(EndpointHit hit) {
+        long time = hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        if (time < 0 || time > MAX_TIME) {
+            throw new BadRequestException("время просмотра вне диапазона колоночного хранилища: "
+                    + hit.getTimestamp());
+        }
+    }
+
+    @Override
+    public List<ViewStats> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<Long, long[]> hits = new HashMap<>();
+        scan(start, end, uris, (position, app, uri, ip, ipKind, time) ->
+                hits.computeIfAbsent(key(app, uri), k -> new long[1])[0]++);
+        List<ViewStats> stats = new ArrayList<>(hits.size());
+        hits.forEach((key, count) -> stats.add(toViewStats(key, count[0])));
+        return stats;
+    }
+
+    @Override
+    public List<ViewStats> countUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<Long, Set<Long>> visitors = collectVisitors(start, end, uris);
+        List<ViewStats> stats = new ArrayList<>(visitors.size());
+        visitors.forEach((key, ipSet) -> stats.add(toViewStats(key, ipSet.size())));
+        return stats;
+    }
+
+    @Override
+    public List<HitVisitor> findVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<HitVisitor> result = new ArrayList<>();
+        collectVisitors(start, end, uris).forEach((key, ipSet) -> {
+            String app = apps.valueOf((int) (key >>> 32));
+            String uri = this.uris.valueOf(key.intValue());
+            ipSet.forEach(ip -> result.add(new Visitor(app, uri, decodeIp(ip))));
+        });
+        return result;
+    }
+
+    @Override
+    public void exportHits(LocalDateTime start, LocalDateTime end, String app, Consumer<EndpointHit> consumer) {
+        int appId = app == null ? -1 : apps.find(app);
+        if (app != null && appId < 0) {
+            return;
+        }
+        long from = start.toEpochSecond(ZoneOffset.UTC);
+        long to = end.toEpochSecond(ZoneOffset.UTC);
+        for (HitSegment segment : segments) {
+            segment.scan(from, to, null, (position, appIndex, uri, ip, ipKind, time) -> {
+                if (app != null && appIndex != appId) {
+                    return;
+                }
+                consumer.accept(EndpointHit.builder()
+                        .id(hitId(segment, position))
+                        .app(apps.valueOf(appIndex))
+                        .uri(uris.valueOf(uri))
+                        .ip(decodeIp(ipKey(ip, ipKind)))
+                        .timestamp(LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC))
+                        .build());
+            });
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        for (HitSegment segment : segments) {
+            segment.close();
+        }
+        apps.close();
+        uris.close();
+        ips.close();
+    }
+
+    private long append(EndpointHit hit) {
+        validate(hit);
+        long time = hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        try {
+            int app = apps.idOf(hit.getApp());
+            int uri = uris.idOf(hit.getUri());
+            long ipv4 = parseIpv4(hit.getIp());
+            boolean dictionaryIp = ipv4 < 0;
+            int ip = dictionaryIp ? ips.idOf(hit.getIp()) : (int) ipv4;
+            HitSegment segment = activeSegment();
+            int position = segment.append(app, uri, ip, dictionaryIp ? HitSegment.IP_DICTIONARY : HitSegment.IP_V4,
+                    time);
+            return hitId(segment, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HitSegment activeSegment() throws IOException {
+        HitSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last != null && !last.isFull()) {
+            return last;
+        }
+        if (last != null) {
+            last.force();
+            apps.force();
+            uris.force();
+            ips.force();
+        }
+        int index = last == null ? 1 : last.getIndex() + 1;
+        HitSegment segment = HitSegment.create(index,
+                directory.resolve(String.format("segment-%06d.hits", index)), segmentCapacity);
+        segments.add(segment);
+        log.info("ColumnarHitStorage: создан сегмент {}", index);
+        return segment;
+    }
+
+    private void scan(LocalDateTime start, LocalDateTime end, List<String> uriList, HitSegment.HitConsumer consumer) {
+        BitSet uriIds = new BitSet();
+        for (String uri : uriList) {
+            int id = uris.find(uri);
+            if (id >= 0) {
+                uriIds.set(id);
+            }
+        }
+        if (uriIds.isEmpty()) {
+            return;
+        }
+        long from = start.toEpochSecond(ZoneOffset.UTC);
+        long to = end.toEpochSecond(ZoneOffset.UTC);
+        for (HitSegment segment : segments) {
+            segment.scan(from, to, uriIds, consumer);
+        }
+    }
+
+    private Map<Long, Set<Long>> collectVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<Long, Set<Long>> visitors = new HashMap<>();
+        scan(start, end, uris, (position, app, uri, ip, ipKind, time) -> visitors.computeIfAbsent(key(app, uri),
+                k -> new HashSet<>()).add(ipKey(ip, ipKind)));
+        return visitors;
+    }
+
+    private ViewStats toViewStats(long key, long hits) {
+        return new ViewStats(apps.valueOf((int) (key >>> 32)), uris.valueOf((int) key), hits);
+    }
+
+    private String decodeIp(long ip) {
+        if ((ip >>> 32) == HitSegment.IP_DICTIONARY) {
+            return ips.valueOf((int) ip);
+        }
+        return ((ip >>> 24) & 0xFF) + "." + ((ip >>> 16) & 0xFF) + "." + ((ip >>> 8) & 0xFF) + "." + (ip & 0xFF);
+    }
+
+    private static long key(int app, int uri) {
+        return ((long) app << 32) | Integer.toUnsignedLong(uri);
+    }
+
+    private static long ipKey(int ip, byte ipKind) {
+        return ((long) ipKind << 32) | Integer.toUnsignedLong(ip);
+    }
+
+    private static long hitId(HitSegment segment, int position) {
+        return ((long) segment.getIndex() << 32) + position + 1;
+    }
+
+    /**
+     * @return адрес IPv4 как число без знака или -1, если строка не является адресом IPv4 в каноничной
+     * десятичной записи (такие адреса хранятся в словаре, чтобы возвращаться без изменений)
+     */
+    static long parseIpv4(String ip) {
+        String[] octets = ip.split("\\.", -1);
+        if (octets.length != 4) {
+            return -1;
+        }
+        long result = 0;
+        for (String octet : octets) {
+            if (octet.isEmpty() || octet.length() > 3 || (octet.length() > 1 && octet.charAt(0) == '0')
+                    || !octet.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                return -1;
+            }
+            int value = Integer.parseInt(octet);
+            if (value > 255) {
+                return -1;
+            }
+            result = (result << 8) | value;
+        }
+        return result;
+    }
+
+    @lombok.Value
+    static class Visitor implements HitVisitor {
+        String app;
+        String uri;
+        String ip;
+    }
+}
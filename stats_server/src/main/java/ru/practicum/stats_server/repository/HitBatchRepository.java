@@ -0,0 +1,34 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Пакетная запись просмотров через JDBC batch insert. JPA здесь не подходит: с GenerationType.IDENTITY
+ * Hibernate отключает batching и выполняет один INSERT на каждую запись.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitBatchRepository {
+    private static final String INSERT_HIT = "INSERT INTO stats (app, uri, ip, timestamp) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    @Value("${stats.hits.batch-size:1000}")
+    private int batchSize;
+
+    public int saveAll(List<EndpointHit> hits) {
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+        return hits.size();
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Месячные секции таблицы stats в PostgreSQL. Секция месяца называется stats_yYYYYmMM и содержит
+ * просмотры с timestamp в [первое число месяца, первое число следующего месяца).
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitPartitionRepository {
+    private static final Pattern PARTITION_NAME = Pattern.compile("stats_y(\\d{4})m(\\d{2})");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-01 00:00:00");
+
+    private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'stats'::regclass";
+
+    private static final long MAINTENANCE_LOCK = 20140L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Блокирует обслуживание секций до конца транзакции, чтобы несколько экземпляров сервера
+     * не создавали одну и ту же секцию одновременно.
+     */
+    public void lockMaintenance() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", MAINTENANCE_LOCK);
+    }
+
+    /**
+     * @return месяцы, для которых есть секции, по возрастанию
+     */
+    public List<YearMonth> findMonths() {
+        return jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class).stream()
+                .map(HitPartitionRepository::toMonth)
+                .filter(Objects::nonNull)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Создает секцию месяца. Просмотры этого месяца, попавшие в секцию по умолчанию, переносятся в новую
+     * секцию до ее подключения, иначе PostgreSQL не даст подключить пересекающийся диапазон.
+     *
+     * @param month месяц
+     */
+    public void createPartition(YearMonth month) {
+        String name = toName(month);
+        String from = month.format(BOUND);
+        String to = month.plusMonths(1).format(BOUND);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE stats INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("WITH moved AS (DELETE FROM stats_default " +
+                "WHERE timestamp >= '" + from + "' AND timestamp < '" + to + "' RETURNING *) " +
+                "INSERT INTO " + name + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    /**
+     * Удаляет секцию месяца вместе с ее просмотрами.
+     *
+     * @param month месяц
+     */
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + toName(month));
+    }
+
+    /**
+     * Удаляет просмотры старше начала месяца из секции по умолчанию, куда попадают записи задним числом.
+     *
+     * @param month первый сохраняемый месяц
+     * @return количество удаленных просмотров
+     */
+    public int deleteDefaultBefore(YearMonth month) {
+        return jdbcTemplate.update("DELETE FROM stats_default WHERE timestamp < '" + month.format(BOUND) + "'");
+    }
+
+    static String toName(YearMonth month) {
+        return String.format("stats_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    static YearMonth toMonth(String name) {
+        Matcher matcher = PARTITION_NAME.matcher(name);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
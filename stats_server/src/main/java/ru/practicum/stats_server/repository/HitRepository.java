@@ -2,25 +2,51 @@ package ru.practicum.stats_server.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.stats_server.dto.HitVisitor;
 import ru.practicum.stats_server.model.EndpointHit;
 import ru.practicum.stats_server.dto.ViewStats;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface HitRepository extends JpaRepository<EndpointHit, Long> {
 
-    @Query("SELECT e.app AS app, e.uri AS uri, count(e.uri) AS hits " +
+    @Query("SELECT new ru.practicum.stats_server.dto.ViewStats(e.app, e.uri, count(e.uri)) " +
             "FROM EndpointHit e " +
-            "WHERE (e.timestamp BETWEEN :start AND :end) " +
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
             "AND e.uri IN :uris " +
             "GROUP BY (e.app), (e.uri)")
-    List<ViewStats> getViewStatsListByParams(LocalDateTime start, LocalDateTime end, List<String> uris);
+    List<ViewStats> getViewStatsListInRange(LocalDateTime start, LocalDateTime end, List<String> uris);
 
-    @Query("SELECT e.app AS app, e.uri AS uri, count(e.uri) AS hits " +
+    @Query("SELECT new ru.practicum.stats_server.dto.ViewStats(e.app, e.uri, count(DISTINCT e.ip)) " +
             "FROM EndpointHit e " +
-            "WHERE (e.timestamp BETWEEN :start AND :end) " +
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
             "AND e.uri IN :uris " +
-            "GROUP BY (e.app), (e.uri), (e.ip)")
-    List<ViewStats> getViewStatsListByParamsUnique(LocalDateTime start, LocalDateTime end, List<String> uris);
+            "GROUP BY (e.app), (e.uri)")
+    List<ViewStats> getUniqueViewStatsListInRange(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    @Query("SELECT DISTINCT e.app AS app, e.uri AS uri, e.ip AS ip " +
+            "FROM EndpointHit e " +
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
+            "AND e.uri IN :uris")
+    List<HitVisitor> getVisitorsInRange(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    /**
+     * Курсор по просмотрам за интервал: строки читаются с сервера порциями по fetch size.
+     * Требует открытой транзакции на время чтения потока.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT e FROM EndpointHit e " +
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
+            "AND (:app IS NULL OR e.app = :app)")
+    Stream<EndpointHit> streamHits(LocalDateTime start, LocalDateTime end, String app);
 }
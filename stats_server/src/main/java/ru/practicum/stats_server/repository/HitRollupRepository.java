@@ -0,0 +1,143 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.model.EndpointHit;
+import ru.practicum.stats_server.model.Granularity;
+import ru.practicum.stats_server.service.RollupPlanner.TimeSegment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Предагрегированные счетчики просмотров по (app, uri) в минутных, часовых и дневных бакетах.
+ * Счетчики увеличиваются вместе с записью сырых просмотров, поэтому /stats не нужно сканировать таблицу stats.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final String INSERT_BUCKET = "INSERT INTO stats_rollups " +
+            "(granularity, bucket_start, app, uri, hits) VALUES (:granularity, :bucketStart, :app, :uri, 0) ON CONFLICT DO NOTHING";
+    private static final String INCREMENT_BUCKET = "UPDATE stats_rollups SET hits = hits + :hits " +
+            "WHERE granularity = :granularity AND bucket_start = :bucketStart AND app = :app AND uri = :uri";
+    private static final String DELETE_BUCKETS = "DELETE FROM stats_rollups " +
+            "WHERE bucket_start >= :from AND bucket_start < :to";
+    private static final String REBUILD_BUCKETS = "INSERT INTO stats_rollups " +
+            "(granularity, bucket_start, app, uri, hits) " +
+            "SELECT '%1$s', DATE_TRUNC('%2$s', timestamp), app, uri, COUNT(*) FROM stats " +
+            "WHERE timestamp >= :from AND timestamp < :to AND uri IS NOT NULL " +
+            "GROUP BY DATE_TRUNC('%2$s', timestamp), app, uri";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Увеличивает счетчики всех бакетов, в которые попадают просмотры. Ключи обновляются в одном и том же
+     * порядке, чтобы параллельные пачки не блокировали друг друга взаимно.
+     *
+     * @param hits сырые просмотры
+     */
+    public void addHits(List<EndpointHit> hits) {
+        Map<RollupKey, Long> increments = new TreeMap<>(RollupKey.ORDER);
+        for (EndpointHit hit : hits) {
+            for (Granularity granularity : Granularity.values()) {
+                RollupKey key = new RollupKey(granularity, granularity.truncate(hit.getTimestamp()),
+                        hit.getApp(), hit.getUri());
+                increments.merge(key, 1L, Long::sum);
+            }
+        }
+        SqlParameterSource[] params = increments.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("granularity", entry.getKey().getGranularity().name())
+                        .addValue("bucketStart", Timestamp.valueOf(entry.getKey().getBucketStart()))
+                        .addValue("app", entry.getKey().getApp())
+                        .addValue("uri", entry.getKey().getUri())
+                        .addValue("hits", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_BUCKET, params);
+        jdbcTemplate.batchUpdate(INCREMENT_BUCKET, params);
+    }
+
+    /**
+     * Пересчитывает бакеты [from, to) по сырым просмотрам таблицы stats, например после массовой загрузки
+     * в обход addHits. Бакеты интервала, для которого сырых просмотров уже нет, обнуляются.
+     *
+     * @param from начало интервала, граница дневного бакета
+     * @param to   конец интервала, граница дневного бакета
+     * @return количество записанных бакетов
+     */
+    public int rebuild(LocalDateTime from, LocalDateTime to) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        jdbcTemplate.update(DELETE_BUCKETS, params);
+        int buckets = 0;
+        for (Granularity granularity : Granularity.values()) {
+            buckets += jdbcTemplate.update(String.format(REBUILD_BUCKETS, granularity.name(),
+                    granularity.name().toLowerCase()), params);
+        }
+        return buckets;
+    }
+
+    /**
+     * Суммирует просмотры по бакетам всех переданных отрезков одним запросом.
+     *
+     * @param segments отрезки, покрытые бакетами (сырые отрезки пропускаются)
+     * @param uris     адреса
+     * @return сумма просмотров по (app, uri)
+     */
+    public List<ViewStats> sumHits(List<TimeSegment> segments, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource("uris", uris);
+        String ranges = bucketRanges(segments, params);
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query("SELECT app, uri, SUM(hits) AS hits FROM stats_rollups " +
+                        "WHERE uri IN (:uris) AND (" + ranges + ") GROUP BY app, uri", params,
+                (rs, rowNum) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /**
+     * Строит условие выборки бакетов по отрезкам вида (granularity = ? AND bucket_start >= ? AND bucket_start < ?)
+     * и добавляет его параметры в params.
+     *
+     * @return условие, соединенное через OR, или пустая строка, если все отрезки сырые
+     */
+    static String bucketRanges(List<TimeSegment> segments, MapSqlParameterSource params) {
+        StringBuilder ranges = new StringBuilder();
+        int i = 0;
+        for (TimeSegment segment : segments) {
+            if (segment.isRaw()) {
+                continue;
+            }
+            ranges.append(i == 0 ? "" : " OR ").append(String.format(
+                    "(granularity = :g%1$d AND bucket_start >= :from%1$d AND bucket_start < :to%1$d)", i));
+            params.addValue("g" + i, segment.getGranularity().name())
+                    .addValue("from" + i, Timestamp.valueOf(segment.getFrom()))
+                    .addValue("to" + i, Timestamp.valueOf(segment.getTo()));
+            i++;
+        }
+        return ranges.toString();
+    }
+
+    @Value
+    static class RollupKey {
+        static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::getGranularity)
+                .thenComparing(RollupKey::getBucketStart)
+                .thenComparing(RollupKey::getApp)
+                .thenComparing(RollupKey::getUri);
+
+        Granularity granularity;
+        LocalDateTime bucketStart;
+        String app;
+        String uri;
+    }
+}
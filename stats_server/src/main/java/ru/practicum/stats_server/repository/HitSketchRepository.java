@@ -0,0 +1,227 @@
+package ru.practicum.stats_server.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.model.EndpointHit;
+import ru.practicum.stats_server.model.Granularity;
+import ru.practicum.stats_server.service.RollupPlanner.TimeSegment;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Скетчи HyperLogLog уникальных ip по (app, uri) в часовых и дневных бакетах.
+ * Скетч бакета дополняется при каждой записи просмотров под блокировкой строки (SELECT ... FOR UPDATE).
+ */
+@Repository
+public class HitSketchRepository {
+    public static final List<Granularity> GRANULARITIES = List.of(Granularity.DAY, Granularity.HOUR);
+
+    private static final String INSERT_SKETCH = "INSERT INTO stats_sketches " +
+            "(granularity, bucket_start, app, uri, sketch) VALUES (:granularity, :bucketStart, :app, :uri, :sketch) " +
+            "ON CONFLICT DO NOTHING";
+    private static final String SELECT_FOR_UPDATE = "SELECT granularity, bucket_start, app, uri, sketch " +
+            "FROM stats_sketches WHERE (granularity, bucket_start, app, uri) IN (:keys) FOR UPDATE";
+    private static final String UPDATE_SKETCH = "UPDATE stats_sketches SET sketch = :sketch " +
+            "WHERE granularity = :granularity AND bucket_start = :bucketStart AND app = :app AND uri = :uri";
+
+    private static final String DELETE_SKETCHES = "DELETE FROM stats_sketches " +
+            "WHERE bucket_start >= ? AND bucket_start < ?";
+    private static final String SELECT_HITS = "SELECT app, uri, ip, timestamp FROM stats " +
+            "WHERE timestamp >= ? AND timestamp < ? AND uri IS NOT NULL AND ip IS NOT NULL " +
+            "ORDER BY uri, app, timestamp";
+
+    private static final int LOCK_CHUNK_SIZE = 1000;
+    private static final int REBUILD_FETCH_SIZE = 10000;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int precision;
+
+    public HitSketchRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                               @Value("${stats.unique.error:0.02}") double error) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.precision = HyperLogLog.precisionForError(error);
+    }
+
+    public HyperLogLog newSketch() {
+        return new HyperLogLog(precision);
+    }
+
+    /**
+     * Добавляет ip просмотров в скетчи их бакетов.
+     *
+     * @param hits сырые просмотры
+     */
+    public void addHits(List<EndpointHit> hits) {
+        Map<SketchKey, HyperLogLog> additions = new TreeMap<>(SketchKey.ORDER);
+        for (EndpointHit hit : hits) {
+            for (Granularity granularity : GRANULARITIES) {
+                SketchKey key = new SketchKey(granularity, granularity.truncate(hit.getTimestamp()),
+                        hit.getApp(), hit.getUri());
+                additions.computeIfAbsent(key, k -> newSketch()).add(hit.getIp());
+            }
+        }
+        byte[] empty = newSketch().toBytes();
+        jdbcTemplate.batchUpdate(INSERT_SKETCH, additions.keySet().stream()
+                .map(key -> key.toParams().addValue("sketch", empty))
+                .toArray(SqlParameterSource[]::new));
+
+        List<Object[]> keys = new ArrayList<>();
+        additions.keySet().forEach(key -> keys.add(new Object[]{key.getGranularity().name(),
+                Timestamp.valueOf(key.getBucketStart()), key.getApp(), key.getUri()}));
+        List<SqlParameterSource> updates = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += LOCK_CHUNK_SIZE) {
+            List<Object[]> chunk = keys.subList(from, Math.min(keys.size(), from + LOCK_CHUNK_SIZE));
+            jdbcTemplate.query(SELECT_FOR_UPDATE, new MapSqlParameterSource("keys", chunk), rs -> {
+                SketchKey key = new SketchKey(Granularity.valueOf(rs.getString("granularity")),
+                        rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getString("app"), rs.getString("uri"));
+                HyperLogLog sketch = mergeCompatible(HyperLogLog.fromBytes(rs.getBytes("sketch")),
+                        additions.get(key));
+                updates.add(key.toParams().addValue("sketch", sketch.toBytes()));
+            });
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SKETCH, updates.toArray(new SqlParameterSource[0]));
+    }
+
+    /**
+     * Пересчитывает скетчи [from, to) по сырым просмотрам таблицы stats, например после массовой загрузки
+     * в обход addHits. Просмотры читаются курсором, упорядоченными по (uri, app, timestamp), поэтому в памяти
+     * одновременно находятся только текущие часовой и дневной скетчи.
+     *
+     * @param from начало интервала, граница дневного бакета
+     * @param to   конец интервала, граница дневного бакета
+     * @return количество записанных скетчей
+     */
+    public int rebuild(LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.getJdbcOperations().update(DELETE_SKETCHES, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        SketchWriter writer = new SketchWriter();
+        jdbcTemplate.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_HITS);
+            statement.setFetchSize(REBUILD_FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            statement.setTimestamp(2, Timestamp.valueOf(to));
+            return statement;
+        }, rs -> {
+            writer.add(rs.getString("app"), rs.getString("uri"), rs.getString("ip"),
+                    rs.getTimestamp("timestamp").toLocalDateTime());
+        });
+        return writer.finish();
+    }
+
+    /**
+     * Объединяет скетчи всех бакетов переданных отрезков.
+     *
+     * @param segments отрезки, покрытые бакетами (сырые отрезки пропускаются)
+     * @param uris     адреса
+     * @return объединенный скетч по (app, uri)
+     */
+    public Map<List<String>, HyperLogLog> mergeSketches(List<TimeSegment> segments, List<String> uris) {
+        Map<List<String>, HyperLogLog> sketches = new HashMap<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("uris", uris);
+        String ranges = HitRollupRepository.bucketRanges(segments, params);
+        if (ranges.isEmpty()) {
+            return sketches;
+        }
+        jdbcTemplate.query("SELECT app, uri, sketch FROM stats_sketches WHERE uri IN (:uris) AND (" + ranges + ")",
+                params, rs -> {
+                    HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+                    sketches.merge(List.of(rs.getString("app"), rs.getString("uri")), sketch,
+                            this::mergeCompatible);
+                });
+        return sketches;
+    }
+
+    /**
+     * Скетчи, записанные до смены stats.unique.error, имеют другую точность и не объединяются
+     * с новыми; в этом случае остается скетч с текущей точностью.
+     */
+    private HyperLogLog mergeCompatible(HyperLogLog target, HyperLogLog source) {
+        if (target.getPrecision() != source.getPrecision()) {
+            return target.getPrecision() == precision ? target : source;
+        }
+        target.merge(source);
+        return target;
+    }
+
+    /**
+     * Собирает скетчи из упорядоченных просмотров: скетч бакета записывается, как только ключ бакета сменился
+     */
+    private class SketchWriter {
+        private final Map<Granularity, SketchKey> keys = new EnumMap<>(Granularity.class);
+        private final Map<Granularity, HyperLogLog> sketches = new EnumMap<>(Granularity.class);
+        private final List<SqlParameterSource> batch = new ArrayList<>();
+        private int written;
+
+        void add(String app, String uri, String ip, LocalDateTime timestamp) {
+            for (Granularity granularity : GRANULARITIES) {
+                SketchKey key = new SketchKey(granularity, granularity.truncate(timestamp), app, uri);
+                if (!key.equals(keys.get(granularity))) {
+                    flush(granularity);
+                    keys.put(granularity, key);
+                    sketches.put(granularity, newSketch());
+                }
+                sketches.get(granularity).add(ip);
+            }
+        }
+
+        int finish() {
+            GRANULARITIES.forEach(this::flush);
+            writeBatch();
+            return written;
+        }
+
+        private void flush(Granularity granularity) {
+            SketchKey key = keys.remove(granularity);
+            if (key == null) {
+                return;
+            }
+            batch.add(key.toParams().addValue("sketch", sketches.remove(granularity).toBytes()));
+            if (batch.size() == REBUILD_BATCH_SIZE) {
+                writeBatch();
+            }
+        }
+
+        private void writeBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_SKETCH, batch.toArray(new SqlParameterSource[0]));
+            written += batch.size();
+            batch.clear();
+        }
+    }
+
+    @lombok.Value
+    static class SketchKey {
+        static final Comparator<SketchKey> ORDER = Comparator.comparing(SketchKey::getGranularity)
+                .thenComparing(SketchKey::getBucketStart)
+                .thenComparing(SketchKey::getApp)
+                .thenComparing(SketchKey::getUri);
+
+        Granularity granularity;
+        LocalDateTime bucketStart;
+        String app;
+        String uri;
+
+        MapSqlParameterSource toParams() {
+            return new MapSqlParameterSource()
+                    .addValue("granularity", granularity.name())
+                    .addValue("bucketStart", Timestamp.valueOf(bucketStart))
+                    .addValue("app", app)
+                    .addValue("uri", uri);
+        }
+    }
+}
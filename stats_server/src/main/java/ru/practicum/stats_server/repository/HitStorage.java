@@ -0,0 +1,60 @@
+package ru.practicum.stats_server.repository;
+
+import ru.practicum.stats_server.dto.HitVisitor;
+import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.exception.BadRequestException;
+import ru.practicum.stats_server.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище сырых просмотров. Движок выбирается свойством stats.storage.engine: jpa (по умолчанию, таблица stats)
+ * или columnar (колоночные сегменты на диске). Интервалы времени полуоткрытые: [start, end).
+ */
+public interface HitStorage {
+
+    /**
+     * Проверяет, что просмотр поместится в хранилище. Сервис проверяет всю пачку до изменения бакетов
+     * и скетчей, чтобы хранилище, которое пишет вне транзакции JDBC, не разошлось с ними.
+     *
+     * @throws BadRequestException если хранилище не может сохранить просмотр
+     */
+    default void validate(EndpointHit hit) {
+    }
+
+    /**
+     * @param hit просмотр
+     * @return сохраненный просмотр с id
+     */
+    EndpointHit save(EndpointHit hit);
+
+    /**
+     * @param hits просмотры
+     * @return количество сохраненных просмотров
+     */
+    int saveAll(List<EndpointHit> hits);
+
+    /**
+     * @return количество просмотров по (app, uri)
+     */
+    List<ViewStats> countHits(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    /**
+     * @return количество уникальных ip по (app, uri)
+     */
+    List<ViewStats> countUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    /**
+     * @return различные тройки (app, uri, ip)
+     */
+    List<HitVisitor> findVisitors(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    /**
+     * Передает consumer просмотры за интервал по одному, не загружая их в память целиком.
+     *
+     * @param app приложение или null для всех приложений
+     */
+    void exportHits(LocalDateTime start, LocalDateTime end, String app, Consumer<EndpointHit> consumer);
+}
@@ -0,0 +1,65 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.dto.HitVisitor;
+import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.model.EndpointHit;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Просмотры в таблице stats: одиночная запись через JPA, пачки через JDBC batch insert, выгрузка курсором
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaHitStorage implements HitStorage {
+    private final HitRepository repository;
+    private final HitBatchRepository batchRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    public EndpointHit save(EndpointHit hit) {
+        return repository.save(hit);
+    }
+
+    @Override
+    public int saveAll(List<EndpointHit> hits) {
+        return batchRepository.saveAll(hits);
+    }
+
+    @Override
+    public List<ViewStats> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return repository.getViewStatsListInRange(start, end, uris);
+    }
+
+    @Override
+    public List<ViewStats> countUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return repository.getUniqueViewStatsListInRange(start, end, uris);
+    }
+
+    @Override
+    public List<HitVisitor> findVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return repository.getVisitorsInRange(start, end, uris);
+    }
+
+    /**
+     * Каждый прочитанный просмотр отсоединяется от контекста персистентности, чтобы память не росла
+     * с количеством строк.
+     */
+    @Override
+    public void exportHits(LocalDateTime start, LocalDateTime end, String app, Consumer<EndpointHit> consumer) {
+        try (Stream<EndpointHit> hits = repository.streamHits(start, end, app)) {
+            hits.forEach(hit -> {
+                consumer.accept(hit);
+                entityManager.detach(hit);
+            });
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.stats_server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats_server.repository.HitPartitionRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Обслуживание месячных секций таблицы stats: заранее создает секции на stats.partitions.months-ahead
+ * месяцев вперед и удаляет секции старше stats.partitions.retention-months месяцев (0 - хранить все).
+ * Удаление секции стоит одного DROP TABLE вместо массового DELETE. Бакеты stats_rollups и stats_sketches
+ * не удаляются, поэтому /stats продолжает считать просмотры за удаленные месяцы по ним.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class HitPartitionService {
+    private final HitPartitionRepository partitionRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public HitPartitionService(HitPartitionRepository partitionRepository,
+                               @Value("${stats.partitions.months-ahead:2}") int monthsAhead,
+                               @Value("${stats.partitions.retention-months:12}") int retentionMonths) {
+        this.partitionRepository = partitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partitions.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        maintainPartitions(YearMonth.now());
+    }
+
+    /**
+     * @param current текущий месяц
+     */
+    void maintainPartitions(YearMonth current) {
+        partitionRepository.lockMaintenance();
+        List<YearMonth> existing = partitionRepository.findMonths();
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!existing.contains(month)) {
+                partitionRepository.createPartition(month);
+                log.info("HitPartitionService: создана секция просмотров за {}", month);
+            }
+        }
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth firstKept = current.minusMonths(retentionMonths);
+        for (YearMonth month : existing) {
+            if (month.isBefore(firstKept)) {
+                partitionRepository.dropPartition(month);
+                log.info("HitPartitionService: удалена секция просмотров за {}", month);
+            }
+        }
+        int deleted = partitionRepository.deleteDefaultBefore(firstKept);
+        if (deleted > 0) {
+            log.info("HitPartitionService: удалено {} просмотров старше {} из секции по умолчанию", deleted, firstKept);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.stats_server.service;
+
+import lombok.Value;
+import lombok.experimental.UtilityClass;
+import ru.practicum.stats_server.model.Granularity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбивает интервал [start, end) на отрезки, целиком покрытые бакетами предагрегированной статистики,
+ * и "рваные" края, которые приходится считать по сырым просмотрам. Для уровней DAY, HOUR, MINUTE
+ * интервал раскладывается максимум на семь отрезков: raw, MINUTE, HOUR, DAY, HOUR, MINUTE, raw.
+ */
+@UtilityClass
+public class RollupPlanner {
+
+    /**
+     * @param start  начало интервала, включительно
+     * @param end    конец интервала, не включительно
+     * @param levels гранулярности от крупной к мелкой
+     * @return отрезки по возрастанию времени
+     */
+    public static List<TimeSegment> plan(LocalDateTime start, LocalDateTime end, List<Granularity> levels) {
+        List<TimeSegment> segments = new ArrayList<>();
+        split(start, end, levels, 0, segments);
+        return segments;
+    }
+
+    private static void split(LocalDateTime start, LocalDateTime end, List<Granularity> levels, int level,
+                              List<TimeSegment> segments) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+        if (level == levels.size()) {
+            segments.add(new TimeSegment(null, start, end));
+            return;
+        }
+        Granularity granularity = levels.get(level);
+        LocalDateTime from = granularity.ceil(start);
+        LocalDateTime to = granularity.truncate(end);
+        if (!from.isBefore(to)) {
+            split(start, end, levels, level + 1, segments);
+            return;
+        }
+        split(start, from, levels, level + 1, segments);
+        segments.add(new TimeSegment(granularity, from, to));
+        split(to, end, levels, level + 1, segments);
+    }
+
+    /**
+     * Отрезок [from, to). granularity == null означает подсчет по сырым просмотрам.
+     */
+    @Value
+    public static class TimeSegment {
+        Granularity granularity;
+        LocalDateTime from;
+        LocalDateTime to;
+
+        public boolean isRaw() {
+            return granularity == null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.stats_server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats_server.model.Granularity;
+import ru.practicum.stats_server.repository.HitRollupRepository;
+import ru.practicum.stats_server.repository.HitSketchRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Пересчет бакетов stats_rollups и скетчей stats_sketches по сырым просмотрам таблицы stats. Нужен после
+ * загрузки просмотров в обход POST /hit и /hits (COPY, генератор данных), иначе /stats их не увидит.
+ * Каждый день пересчитывается в своей транзакции, чтобы длинный интервал не держал одну транзакцию на часы.
+ * Пока идет пересчет дня, новые просмотры этого дня могут быть учтены дважды, поэтому пересчитывать
+ * стоит интервалы без живого трафика.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class RollupRebuildService {
+    private final HitRollupRepository rollupRepository;
+    private final HitSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public RollupRebuildService(HitRollupRepository rollupRepository, HitSketchRepository sketchRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param start начало интервала, округляется вниз до начала дня
+     * @param end   конец интервала, включительно, округляется вверх до начала следующего дня
+     * @return количество пересчитанных дней
+     */
+    public int rebuild(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = Granularity.DAY.truncate(start);
+        LocalDateTime to = Granularity.DAY.ceil(end.plusSeconds(1));
+        int days = 0;
+        for (LocalDateTime day = from; day.isBefore(to); day = day.plusDays(1)) {
+            LocalDateTime dayStart = day;
+            LocalDateTime dayEnd = day.plusDays(1);
+            transactionTemplate.executeWithoutResult(status -> {
+                int buckets = rollupRepository.rebuild(dayStart, dayEnd);
+                int sketches = sketchRepository.rebuild(dayStart, dayEnd);
+                log.info("RollupRebuildService: пересчитан {}: бакетов {}, скетчей {}", dayStart.toLocalDate(),
+                        buckets, sketches);
+            });
+            days++;
+        }
+        return days;
+    }
+}
@@ -1,48 +1,282 @@
 package ru.practicum.stats_server.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.stats_server.dto.EndpointHitDto;
 import ru.practicum.stats_server.dto.EndpointHitMapper;
+import ru.practicum.stats_server.dto.ExportFormat;
 import ru.practicum.stats_server.dto.ViewStats;
-import ru.practicum.stats_server.repository.HitRepository;
+import ru.practicum.stats_server.exception.BadRequestException;
+import ru.practicum.stats_server.jfr.HitIngestEvent;
+import ru.practicum.stats_server.jfr.StatsQueryEvent;
+import ru.practicum.stats_server.model.EndpointHit;
+import ru.practicum.stats_server.model.Granularity;
+import ru.practicum.stats_server.repository.HitRollupRepository;
+import ru.practicum.stats_server.repository.HitSketchRepository;
+import ru.practicum.stats_server.repository.HitStorage;
+import ru.practicum.stats_server.service.RollupPlanner.TimeSegment;
+import ru.practicum.stats_server.sketch.HyperLogLog;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class StatisticService {
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private final HitRepository repository;
+    private final HitStorage hitStorage;
+    private final HitRollupRepository rollupRepository;
+    private final HitSketchRepository sketchRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    @Value("${stats.unique.approximate:true}")
+    private boolean approximateUnique;
 
-    public List<ViewStats> getViewStats(String start, String end, List<String> uris, Boolean unique)
+    public List<ViewStats> getViewStats(String start, String end, List<String> uris, Boolean unique, Boolean exact)
             throws UnsupportedEncodingException {
-        log.info(":::::декодирование start={}, end={}", start, end);
-        LocalDateTime startTime;
-        LocalDateTime endTime;
-
-        String decodeStart = URLDecoder.decode(start, StandardCharsets.UTF_8.toString());
-        String decodeEnd = URLDecoder.decode(end, StandardCharsets.UTF_8.toString());
-        startTime = LocalDateTime.parse(decodeStart, formatter);
-        endTime = LocalDateTime.parse(decodeEnd, formatter);
-        log.info(":::::декодирование прошло успешно {} -> {}", start, decodeStart);
+        TimeRange range = decodeRange(start, end);
+        LocalDateTime startTime = range.getStart();
+        LocalDateTime endTime = range.getEnd();
 
-        if (unique) {
-            return repository.getViewStatsListByParamsUnique(startTime, endTime, uris);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String mode = !unique ? "rollup" : approximateUnique && !exact ? "sketch" : "exact";
+        StatsQueryEvent event = StatsQueryEvent.start(Duration.between(startTime, endTime).getSeconds(),
+                uris == null ? 0 : uris.size(), mode);
+        List<ViewStats> stats = null;
+        try {
+            if (unique) {
+                if (approximateUnique && !exact) {
+                    stats = countUniqueApproximately(startTime, endTime, uris);
+                } else {
+                    stats = hitStorage.countUniqueHits(startTime, endTime.plusSeconds(1), uris);
+                }
+            } else {
+                stats = countHits(startTime, endTime, uris);
+            }
+            return stats;
+        } finally {
+            sample.stop(meterRegistry.timer("stats.query", "window", window(startTime, endTime),
+                    "unique", String.valueOf(unique), "mode", mode));
+            event.finish(stats == null ? 0 : stats.size());
         }
-        return repository.getViewStatsListByParams(startTime, endTime, uris);
     }
 
+    /**
+     * Сохраняет просмотр. Бакеты и скетчи обновляются до записи в хранилище: колоночное хранилище пишет
+     * вне транзакции, и ошибка обновления агрегатов не должна оставлять в нем просмотр.
+     */
     public EndpointHitDto addHit(EndpointHitDto hit) {
-        return EndpointHitMapper.toEndpointHitDto(repository.save(EndpointHitMapper.toEndpointHit(hit)));
+        meterRegistry.counter("stats.hits.ingested", "endpoint", "single").increment();
+        HitIngestEvent event = HitIngestEvent.start("single", 1);
+        EndpointHit endpointHit = EndpointHitMapper.toEndpointHit(hit);
+        hitStorage.validate(endpointHit);
+        rollupRepository.addHits(List.of(endpointHit));
+        if (approximateUnique) {
+            sketchRepository.addHits(List.of(endpointHit));
+        }
+        endpointHit = hitStorage.save(endpointHit);
+        event.finish();
+        return EndpointHitMapper.toEndpointHitDto(endpointHit);
+    }
+
+    public int addHits(List<EndpointHitDto> hits) {
+        log.info(":::::сохранение пачки просмотров, size={}", hits.size());
+        meterRegistry.counter("stats.hits.ingested", "endpoint", "batch").increment(hits.size());
+        HitIngestEvent event = HitIngestEvent.start("batch", hits.size());
+        List<EndpointHit> endpointHits = hits.stream()
+                .map(EndpointHitMapper::toEndpointHit)
+                .collect(Collectors.toList());
+        endpointHits.forEach(hitStorage::validate);
+        rollupRepository.addHits(endpointHits);
+        if (approximateUnique) {
+            sketchRepository.addHits(endpointHits);
+        }
+        int saved = hitStorage.saveAll(endpointHits);
+        event.finish();
+        return saved;
+    }
+
+    /**
+     * Разбирает интервал запроса. Выгрузка разбирает его до начала потокового ответа: после отправки
+     * статуса 200 ошибку в датах уже не вернуть клиенту как 400.
+     *
+     * @param start начало интервала в формате yyyy-MM-dd HH:mm:ss, возможно URL-кодированное
+     * @param end   конец интервала, включительно
+     * @throws BadRequestException если дата некорректна или start позже end
+     */
+    public TimeRange decodeRange(String start, String end) throws UnsupportedEncodingException {
+        LocalDateTime startTime = decodeTime(start);
+        LocalDateTime endTime = decodeTime(end);
+        if (startTime.isAfter(endTime)) {
+            throw new BadRequestException(String.format("начало интервала %s позже конца %s", startTime, endTime));
+        }
+        return new TimeRange(startTime, endTime);
+    }
+
+    /**
+     * Выгружает сырые просмотры за [start, end] в out построчно, читая их из хранилища курсором.
+     * Память не зависит от количества просмотров: строки уходят клиенту по мере заполнения буфера.
+     *
+     * @param range  интервал из decodeRange
+     * @param app    приложение или null для всех приложений
+     * @param format NDJSON или CSV
+     */
+    @Transactional(readOnly = true)
+    public void exportHits(TimeRange range, String app, ExportFormat format, OutputStream out) throws IOException {
+        LocalDateTime startTime = range.getStart();
+        LocalDateTime endTime = range.getEnd();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write("id,app,uri,ip,timestamp\n");
+        }
+        long[] exported = new long[1];
+        try {
+            hitStorage.exportHits(startTime, endTime.plusSeconds(1), app, hit -> {
+                try {
+                    EndpointHitDto dto = EndpointHitMapper.toEndpointHitDto(hit);
+                    if (format == ExportFormat.CSV) {
+                        writer.write(String.join(",", String.valueOf(dto.getId()), csv(dto.getApp()),
+                                csv(dto.getUri()), csv(dto.getIp()), dto.getTimestamp()));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(dto));
+                    }
+                    writer.write('\n');
+                    exported[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info(":::::выгружено просмотров {} за {} - {}, app={}", exported[0], startTime, endTime, app);
+    }
+
+    /**
+     * Длина интервала запроса для тега window таймера stats.query: верхняя граница из 1h, 1d, 7d, 30d, 365d
+     * или more, чтобы число временных рядов не зависело от запросов.
+     */
+    private static String window(LocalDateTime start, LocalDateTime end) {
+        Duration length = Duration.between(start, end);
+        if (length.compareTo(Duration.ofHours(1)) <= 0) {
+            return "1h";
+        }
+        if (length.compareTo(Duration.ofDays(1)) <= 0) {
+            return "1d";
+        }
+        if (length.compareTo(Duration.ofDays(7)) <= 0) {
+            return "7d";
+        }
+        if (length.compareTo(Duration.ofDays(30)) <= 0) {
+            return "30d";
+        }
+        return length.compareTo(Duration.ofDays(365)) <= 0 ? "365d" : "more";
+    }
+
+    /**
+     * Считает просмотры за [start, end] по предагрегированным бакетам. Сырые просмотры читаются только
+     * для краев интервала, не покрытых целой минутой.
+     *
+     * @param start начало интервала
+     * @param end   конец интервала, включительно (время просмотров хранится с точностью до секунды)
+     * @param uris  адреса
+     * @return просмотры по (app, uri), по убыванию
+     */
+    private List<ViewStats> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<TimeSegment> segments = RollupPlanner.plan(start, end.plusSeconds(1),
+                List.of(Granularity.DAY, Granularity.HOUR, Granularity.MINUTE));
+        Map<List<String>, ViewStats> stats = new LinkedHashMap<>();
+        rollupRepository.sumHits(segments, uris).forEach(s -> mergeViewStats(stats, s));
+        segments.stream()
+                .filter(TimeSegment::isRaw)
+                .flatMap(segment -> hitStorage.countHits(segment.getFrom(), segment.getTo(), uris)
+                        .stream())
+                .forEach(s -> mergeViewStats(stats, s));
+        return stats.values().stream()
+                .sorted(Comparator.comparingLong(ViewStats::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Приблизительно считает уникальных посетителей за [start, end] слиянием скетчей HyperLogLog
+     * часовых и дневных бакетов. ip с краев интервала, не покрытых целым часом, добавляются из сырых просмотров.
+     *
+     * @param start начало интервала
+     * @param end   конец интервала, включительно
+     * @param uris  адреса
+     * @return оценка уникальных просмотров по (app, uri), по убыванию
+     */
+    private List<ViewStats> countUniqueApproximately(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<TimeSegment> segments = RollupPlanner.plan(start, end.plusSeconds(1), HitSketchRepository.GRANULARITIES);
+        Map<List<String>, HyperLogLog> sketches = sketchRepository.mergeSketches(segments, uris);
+        segments.stream()
+                .filter(TimeSegment::isRaw)
+                .flatMap(segment -> hitStorage.findVisitors(segment.getFrom(), segment.getTo(), uris).stream())
+                .forEach(visitor -> sketches.computeIfAbsent(List.of(visitor.getApp(), visitor.getUri()),
+                        key -> sketchRepository.newSketch()).add(visitor.getIp()));
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().get(0), entry.getKey().get(1), entry.getValue().estimate()))
+                .sorted(Comparator.comparingLong(ViewStats::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private LocalDateTime decodeTime(String time) throws UnsupportedEncodingException {
+        String decoded = URLDecoder.decode(time, StandardCharsets.UTF_8.toString());
+        log.info(":::::декодирование прошло успешно {} -> {}", time, decoded);
+        try {
+            return LocalDateTime.parse(decoded, formatter);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("некорректная дата " + decoded + ", ожидается yyyy-MM-dd HH:mm:ss");
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private void mergeViewStats(Map<List<String>, ViewStats> stats, ViewStats viewStats) {
+        stats.merge(List.of(viewStats.getApp(), viewStats.getUri()), viewStats, (a, b) -> {
+            a.setHits(a.getHits() + b.getHits());
+            return a;
+        });
+    }
+
+    /**
+     * Интервал [start, end] запроса, end включительно
+     */
+    @lombok.Value
+    public static class TimeRange {
+        LocalDateTime start;
+        LocalDateTime end;
     }
 }
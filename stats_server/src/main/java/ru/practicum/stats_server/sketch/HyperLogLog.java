@@ -0,0 +1,157 @@
+package ru.practicum.stats_server.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Скетч HyperLogLog для приблизительного подсчета уникальных значений (ip посетителей).
+ * Скетчи с одинаковой точностью объединяются взятием максимума по регистрам, поэтому уникальных
+ * посетителей за произвольный интервал можно получить слиянием скетчей его бакетов.
+ * Относительная ошибка оценки примерно 1.04 / sqrt(2^precision).
+ */
+public class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision должна быть от " + MIN_PRECISION + " до " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * @param error допустимая относительная ошибка, например 0.02
+     * @return минимальная точность, дающая ошибку не больше error
+     */
+    public static int precisionForError(double error) {
+        double registers = Math.pow(1.04 / error, 2);
+        int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        long rest = hash << precision;
+        int rank = rest == 0 ? Long.SIZE - precision + 1 : Long.numberOfLeadingZeros(rest) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(String.format("нельзя объединить скетчи с точностью %d и %d",
+                    precision, other.precision));
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Сериализует скетч. Почти пустые скетчи (а таких большинство в часовых бакетах) хранятся
+     * разреженно: по 3 байта на непустой регистр вместо 2^precision байт.
+     *
+     * @return байтовое представление
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 < registers.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + nonZero * 3);
+            buffer.put((byte) precision).put(SPARSE);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    buffer.putShort((short) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + registers.length);
+        buffer.put((byte) precision).put(DENSE).put(registers);
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (buffer.get() == DENSE) {
+            buffer.get(sketch.registers);
+        } else {
+            while (buffer.hasRemaining()) {
+                int index = Short.toUnsignedInt(buffer.getShort());
+                sketch.registers[index] = buffer.get();
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * 64-битный FNV-1a с финальным перемешиванием из MurmurHash3, чтобы старшие биты
+     * (номер регистра) распределялись равномерно даже для похожих строк вроде ip.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
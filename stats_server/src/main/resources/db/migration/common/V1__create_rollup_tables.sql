@@ -0,0 +1,19 @@
+CREATE TABLE stats_rollups
+(
+    granularity  VARCHAR(10)  NOT NULL,
+    bucket_start TIMESTAMP    NOT NULL,
+    app          VARCHAR(50)  NOT NULL,
+    uri          VARCHAR(256) NOT NULL,
+    hits         BIGINT       NOT NULL,
+    CONSTRAINT pk_stats_rollups PRIMARY KEY (granularity, uri, bucket_start, app)
+);
+
+CREATE TABLE stats_sketches
+(
+    granularity  VARCHAR(10)  NOT NULL,
+    bucket_start TIMESTAMP    NOT NULL,
+    app          VARCHAR(50)  NOT NULL,
+    uri          VARCHAR(256) NOT NULL,
+    sketch       BYTEA        NOT NULL,
+    CONSTRAINT pk_stats_sketches PRIMARY KEY (granularity, uri, bucket_start, app)
+);
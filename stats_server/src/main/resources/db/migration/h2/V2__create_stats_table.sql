@@ -0,0 +1,12 @@
+CREATE TABLE stats
+(
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    app       VARCHAR(50)                             NOT NULL,
+    uri       VARCHAR(256),
+    ip        VARCHAR(50),
+    timestamp TIMESTAMP                               NOT NULL,
+    CONSTRAINT pk_stats PRIMARY KEY (id)
+);
+
+-- выборки HitRepository по адресам за интервал
+CREATE INDEX idx_stats_uri_timestamp ON stats (uri, timestamp);
@@ -0,0 +1,18 @@
+-- таблица stats из прежнего schema.sql (до Flyway) лежит в схеме public и не секционирована: она переносится
+-- в схему сервиса (spring.flyway.default-schema) и переименовывается в stats_legacy, чтобы V2 создала
+-- секционированную stats, а V2_1 перенесла в нее строки
+DO
+$$
+    BEGIN
+        IF current_schema() <> 'public' AND to_regclass(format('%I.stats', current_schema())) IS NULL
+            AND (SELECT relkind FROM pg_class WHERE oid = to_regclass('public.stats')) = 'r' THEN
+            EXECUTE format('ALTER TABLE public.stats SET SCHEMA %I', current_schema());
+        END IF;
+        IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('stats')) = 'r' THEN
+            ALTER TABLE stats RENAME TO stats_legacy;
+            ALTER TABLE stats_legacy RENAME CONSTRAINT pk_stats TO pk_stats_legacy;
+            ALTER SEQUENCE IF EXISTS stats_id_seq RENAME TO stats_legacy_id_seq;
+            ALTER INDEX IF EXISTS idx_stats_uri_timestamp RENAME TO idx_stats_legacy_uri_timestamp;
+        END IF;
+    END
+$$;
@@ -0,0 +1,15 @@
+-- просмотры из stats_legacy (см. V0_1) переносятся в секционированную stats; все строки попадают в секцию
+-- stats_default, по месячным секциям их разносит HitPartitionService. Бакеты и скетчи для перенесенных
+-- просмотров строит POST /rollups/rebuild
+DO
+$$
+    BEGIN
+        IF to_regclass('stats_legacy') IS NOT NULL THEN
+            INSERT INTO stats (id, app, uri, ip, timestamp)
+            SELECT id, app, uri, ip, timestamp
+            FROM stats_legacy;
+            PERFORM setval(pg_get_serial_sequence('stats', 'id'), max(id)) FROM stats_legacy HAVING count(*) > 0;
+            DROP TABLE stats_legacy;
+        END IF;
+    END
+$$;
@@ -0,0 +1,17 @@
+-- сырые просмотры разбиты на месячные секции по timestamp (stats_yYYYYmMM), секции создает и удаляет
+-- HitPartitionService; первичный ключ секционированной таблицы обязан включать ключ секционирования
+CREATE TABLE stats
+(
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    app       VARCHAR(50)                             NOT NULL,
+    uri       VARCHAR(256),
+    ip        VARCHAR(50),
+    timestamp TIMESTAMP                               NOT NULL,
+    CONSTRAINT pk_stats PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- просмотры вне созданных секций (задним числом или далеко вперед), переносятся при создании секции
+CREATE TABLE stats_default PARTITION OF stats DEFAULT;
+
+-- выборки HitRepository по адресам за интервал, индекс создается в каждой секции
+CREATE INDEX idx_stats_uri_timestamp ON stats (uri, timestamp);
@@ -0,0 +1,37 @@
+package ru.practicum.stats_server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "stats.storage.engine=columnar",
+        "stats.storage.columnar.segment-capacity=4",
+        "spring.datasource.url=jdbc:h2:mem:statistic_columnar;MODE=PostgreSQL"
+})
+class ColumnarStatisticApiTest extends StatisticApiTest {
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void columnarDirectory(DynamicPropertyRegistry registry) {
+        registry.add("stats.storage.columnar.directory", directory::toString);
+    }
+
+    @Test
+    void timeOutsideStorageRangeIsRejected() {
+        String uri = "/events/5";
+        assertEquals(HttpStatus.BAD_REQUEST, postHits(List.of(hit(uri, "10.0.0.1", "2026-09-01 16:00:00"),
+                hit(uri, "10.0.0.1", "1960-01-01 00:00:00"))).getStatusCode());
+        assertEquals(List.of(), stats(uri, false, false));
+        assertEquals(List.of(), stats(uri, true, true));
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.stats_server;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.stats_server.dto.ViewStats;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "stats.storage.engine=jpa",
+        "spring.datasource.url=jdbc:h2:mem:statistic_jpa;MODE=PostgreSQL"
+})
+class JpaStatisticApiTest extends StatisticApiTest {
+
+    @Test
+    void rebuildKeepsStats() {
+        String uri = "/events/4";
+        postHits(List.of(hit(uri, "10.0.0.1", "2026-09-01 14:00:00"), hit(uri, "10.0.0.2", "2026-09-01 14:00:30"),
+                hit(uri, "10.0.0.1", "2026-09-01 15:10:00")));
+        assertEquals(3, rest.postForObject("/rollups/rebuild?start={start}&end={end}", null, Integer.class,
+                "2026-08-31 12:00:00", "2026-09-02 12:00:00"));
+
+        assertEquals(List.of(new ViewStats("main", uri, 3)), stats(uri, false, false));
+        assertEquals(List.of(new ViewStats("main", uri, 2)), stats(uri, true, false));
+    }
+}
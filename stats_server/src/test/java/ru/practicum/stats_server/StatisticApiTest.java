@@ -0,0 +1,122 @@
+package ru.practicum.stats_server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.stats_server.dto.EndpointHitDto;
+import ru.practicum.stats_server.dto.ViewStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * POST /hits, GET /stats во всех трех режимах (бакеты, скетчи, точный подсчет уникальных) и GET /hits/export
+ * поверх схемы Flyway в H2. Запускается для каждого хранилища просмотров наследниками с нужным
+ * stats.storage.engine; каждый тест пишет просмотры со своими адресами, поэтому порядок тестов не важен.
+ */
+abstract class StatisticApiTest {
+    static final String START = "2026-09-01 09:59:45";
+    static final String END = "2026-09-02 00:00:00";
+
+    @Autowired
+    TestRestTemplate rest;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void statsMatchInAllModes() {
+        String uri = "/events/1";
+        assertEquals(HttpStatus.OK, postHits(List.of(
+                hit(uri, "10.0.0.1", "2026-09-01 09:59:44"),
+                hit(uri, "10.0.0.1", "2026-09-01 09:59:50"),
+                hit(uri, "10.0.0.1", "2026-09-01 10:00:00"),
+                hit(uri, "10.0.0.2", "2026-09-01 10:30:00"),
+                hit(uri, "::1", "2026-09-01 12:00:10"),
+                hit(uri, "10.0.0.2", "2026-09-02 00:00:00"),
+                hit(uri, "10.0.0.3", "2026-09-02 00:00:01"))).getStatusCode());
+
+        assertEquals(List.of(new ViewStats("main", uri, 5)), stats(uri, false, false));
+        assertEquals(List.of(new ViewStats("main", uri, 3)), stats(uri, true, false));
+        assertEquals(List.of(new ViewStats("main", uri, 3)), stats(uri, true, true));
+    }
+
+    @Test
+    void invalidBatchIsRejected() {
+        String uri = "/events/2";
+        EndpointHitDto invalid = hit(uri, null, "2026-09-01 11:00:00");
+        assertEquals(HttpStatus.BAD_REQUEST, postHits(List.of(hit(uri, "10.0.0.1", "2026-09-01 11:00:00"),
+                invalid)).getStatusCode());
+        assertEquals(List.of(), stats(uri, false, false));
+        assertEquals(List.of(), stats(uri, true, true));
+    }
+
+    @Test
+    void exportEscapesCsvAndNdjson() throws Exception {
+        String uri = "/events/3?q=a,\"b\"";
+        List<EndpointHitDto> hits = List.of(hit(uri, "10.0.0.1", "2026-09-01 13:00:00"),
+                hit(uri, "::1", "2026-09-01 13:00:01"));
+        postHits(hits);
+
+        List<String> csv = export("CSV");
+        assertEquals("id,app,uri,ip,timestamp", csv.get(0));
+        assertEquals(List.of(",export,\"/events/3?q=a,\"\"b\"\"\",10.0.0.1,2026-09-01 13:00:00",
+                ",export,\"/events/3?q=a,\"\"b\"\"\",::1,2026-09-01 13:00:01"), withoutIds(csv.subList(1, csv.size())));
+
+        List<String> ndjson = export("NDJSON");
+        List<EndpointHitDto> exported = new ArrayList<>();
+        for (String line : ndjson) {
+            EndpointHitDto dto = objectMapper.readValue(line, EndpointHitDto.class);
+            dto.setId(null);
+            exported.add(dto);
+        }
+        assertEquals(hits, exported);
+    }
+
+    @Test
+    void invalidRangeIsRejectedBeforeStreaming() {
+        assertEquals(HttpStatus.BAD_REQUEST, rest.getForEntity("/hits/export?start={start}&end={end}", String.class,
+                "2026-09-01", END).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, rest.getForEntity("/hits/export?start={start}&end={end}", String.class,
+                END, START).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, rest.getForEntity("/stats?start={start}&end={end}", String.class,
+                END, START).getStatusCode());
+    }
+
+    ResponseEntity<String> postHits(List<EndpointHitDto> hits) {
+        return rest.postForEntity("/hits", hits, String.class);
+    }
+
+    List<ViewStats> stats(String uri, boolean unique, boolean exact) {
+        ViewStats[] stats = rest.getForObject("/stats?start={start}&end={end}&uris={uri}&unique={unique}&exact={exact}",
+                ViewStats[].class, START, END, uri, unique, exact);
+        return Arrays.asList(stats);
+    }
+
+    static EndpointHitDto hit(String uri, String ip, String timestamp) {
+        return EndpointHitDto.builder()
+                .app(uri.startsWith("/events/3") ? "export" : "main")
+                .uri(uri)
+                .ip(ip)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private List<String> export(String format) {
+        ResponseEntity<String> response = rest.getForEntity("/hits/export?start={start}&end={end}&app=export"
+                + "&format={format}", String.class, START, END, format);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return List.of(response.getBody().split("\n"));
+    }
+
+    private static List<String> withoutIds(List<String> lines) {
+        List<String> result = new ArrayList<>();
+        lines.forEach(line -> result.add(line.substring(line.indexOf(','))));
+        return result;
+    }
+}
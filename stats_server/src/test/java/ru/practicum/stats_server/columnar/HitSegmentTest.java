@@ -0,0 +1,58 @@
+package ru.practicum.stats_server.columnar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HitSegmentTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedSegmentReturnsAppendedHits() throws IOException {
+        Path file = directory.resolve("segment-000001.hits");
+        long lateTime = 0xFFFFFFF0L;
+        try (HitSegment segment = HitSegment.create(1, file, 3)) {
+            assertEquals(0, segment.append(1, 2, 0x0A000001, HitSegment.IP_V4, 1000));
+            assertEquals(1, segment.append(3, 4, 7, HitSegment.IP_DICTIONARY, lateTime));
+            assertFalse(segment.isFull());
+        }
+        try (HitSegment segment = HitSegment.open(1, file)) {
+            assertEquals(2, segment.getCount());
+            List<String> hits = new ArrayList<>();
+            segment.scan(0, lateTime + 1, null, (position, app, uri, ip, ipKind, time) ->
+                    hits.add(position + ":" + app + ":" + uri + ":" + ip + ":" + ipKind + ":" + time));
+            assertEquals(List.of("0:1:2:167772161:0:1000", "1:3:4:7:1:" + lateTime), hits);
+
+            segment.append(1, 2, 1, HitSegment.IP_V4, 2000);
+            assertTrue(segment.isFull());
+            assertThrows(IllegalStateException.class, () -> segment.append(1, 2, 1, HitSegment.IP_V4, 3000));
+        }
+    }
+
+    @Test
+    void scanFiltersByTimeAndUri() throws IOException {
+        try (HitSegment segment = HitSegment.create(1, directory.resolve("segment-000001.hits"), 10_000)) {
+            for (int i = 0; i < 10_000; i++) {
+                segment.append(0, i % 3, i, HitSegment.IP_V4, 100 + i);
+            }
+            BitSet uris = new BitSet();
+            uris.set(1);
+            int[] matched = new int[1];
+            segment.scan(200, 5200, uris, (position, app, uri, ip, ipKind, time) -> {
+                assertEquals(1, uri);
+                assertTrue(time >= 200 && time < 5200);
+                matched[0]++;
+            });
+            assertEquals(5000 / 3 + 1, matched[0]);
+            segment.scan(20_000, 30_000, null, (position, app, uri, ip, ipKind, time) -> fail());
+        }
+    }
+}
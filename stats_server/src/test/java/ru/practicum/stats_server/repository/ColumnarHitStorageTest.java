@@ -0,0 +1,73 @@
+package ru.practicum.stats_server.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats_server.dto.ViewStats;
+import ru.practicum.stats_server.exception.BadRequestException;
+import ru.practicum.stats_server.model.EndpointHit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarHitStorageTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 9, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedStorageKeepsHits() throws IOException {
+        ColumnarHitStorage storage = new ColumnarHitStorage(directory.toString(), 2);
+        storage.saveAll(List.of(hit("/events/1", "10.0.0.1", 0), hit("/events/1", "10.0.0.1", 1),
+                hit("/events/1", "::1", 2), hit("/events/2", "010.0.0.1", 3)));
+        storage.close();
+
+        storage = new ColumnarHitStorage(directory.toString(), 2);
+        EndpointHit saved = storage.save(hit("/events/2", "10.0.0.2", 4));
+        assertEquals((3L << 32) + 1, saved.getId());
+        assertEquals(List.of(new ViewStats("main", "/events/1", 3)),
+                storage.countHits(START, START.plusMinutes(1), List.of("/events/1")));
+        assertEquals(List.of(new ViewStats("main", "/events/1", 2)),
+                storage.countUniqueHits(START, START.plusMinutes(1), List.of("/events/1")));
+        List<String> ips = new ArrayList<>();
+        storage.exportHits(START, START.plusMinutes(1), "main", hit -> ips.add(hit.getIp()));
+        assertEquals(List.of("10.0.0.1", "10.0.0.1", "::1", "010.0.0.1", "10.0.0.2"), ips);
+        storage.close();
+    }
+
+    @Test
+    void rejectsTimeOutsideRange() throws IOException {
+        ColumnarHitStorage storage = new ColumnarHitStorage(directory.toString(), 10);
+        EndpointHit early = hit("/events/1", "10.0.0.1", 0);
+        early.setTimestamp(LocalDateTime.of(1960, 1, 1, 0, 0));
+        assertThrows(BadRequestException.class, () -> storage.saveAll(List.of(hit("/events/1", "10.0.0.1", 0),
+                early)));
+        assertEquals(List.of(), storage.countHits(START, START.plusMinutes(1), List.of("/events/1")));
+        storage.close();
+    }
+
+    @Test
+    void parseIpv4() {
+        assertEquals(0x0A000001L, ColumnarHitStorage.parseIpv4("10.0.0.1"));
+        assertEquals(0xFFFFFFFFL, ColumnarHitStorage.parseIpv4("255.255.255.255"));
+        assertEquals(0, ColumnarHitStorage.parseIpv4("0.0.0.0"));
+        for (String ip : List.of("::1", "10.0.0", "10.0.0.1.2", "10.0.0.256", "010.0.0.1", "10.0..1", "10.0.0.+1",
+                "10.0.0.1 ", "1000.0.0.1", "")) {
+            assertEquals(-1, ColumnarHitStorage.parseIpv4(ip), ip);
+        }
+    }
+
+    private static EndpointHit hit(String uri, String ip, int second) {
+        return EndpointHit.builder()
+                .app("main")
+                .uri(uri)
+                .ip(ip)
+                .timestamp(START.plusSeconds(second))
+                .build();
+    }
+}
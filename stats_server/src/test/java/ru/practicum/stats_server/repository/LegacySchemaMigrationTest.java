@@ -0,0 +1,93 @@
+package ru.practicum.stats_server.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Миграции на встроенном PostgreSQL: пустая база и база, созданная прежним schema.sql (таблица stats
+ * в схеме public без секций), приходят к одной схеме stats_server с секционированной таблицей stats.
+ */
+class LegacySchemaMigrationTest {
+    static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.execute("CREATE DATABASE legacy");
+        jdbcTemplate.execute("CREATE DATABASE fresh");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void legacyStatsTableIsPartitioned() throws SQLException {
+        DataSource dataSource = postgres.getDatabase("postgres", "legacy");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/legacy/schema.sql"));
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO stats (app, uri, ip, timestamp) VALUES " +
+                "('main', '/events/1', '10.0.0.1', '2025-01-10 10:00:00'), " +
+                "('main', '/events/1', '10.0.0.2', '2026-09-01 10:00:00'), " +
+                "('main', '/events/2', '10.0.0.1', '2026-09-02 11:00:00')");
+
+        migrate(dataSource);
+
+        assertEquals("p", relkind(jdbcTemplate, "stats_server.stats"));
+        assertNull(relkind(jdbcTemplate, "public.stats"));
+        assertNull(relkind(jdbcTemplate, "stats_server.stats_legacy"));
+        assertEquals(List.of("1|/events/1|10.0.0.1", "2|/events/1|10.0.0.2", "3|/events/2|10.0.0.1"),
+                jdbcTemplate.queryForList("SELECT id || '|' || uri || '|' || ip FROM stats_server.stats_default " +
+                        "ORDER BY id", String.class));
+        assertEquals(4, jdbcTemplate.queryForObject("INSERT INTO stats_server.stats (app, uri, ip, timestamp) " +
+                "VALUES ('main', '/events/1', '10.0.0.3', now()) RETURNING id", Long.class));
+    }
+
+    @Test
+    void freshDatabaseGetsSchema() {
+        DataSource dataSource = postgres.getDatabase("postgres", "fresh");
+        migrate(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertEquals("p", relkind(jdbcTemplate, "stats_server.stats"));
+        assertEquals("r", relkind(jdbcTemplate, "stats_server.stats_rollups"));
+        assertNull(relkind(jdbcTemplate, "stats_server.stats_legacy"));
+        assertEquals(1, jdbcTemplate.queryForObject("INSERT INTO stats_server.stats (app, uri, ip, timestamp) " +
+                "VALUES ('main', '/events/1', '10.0.0.3', now()) RETURNING id", Long.class));
+    }
+
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("stats_server")
+                .defaultSchema("stats_server")
+                .table("stats_schema_history")
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+    }
+
+    private static String relkind(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT (SELECT relkind FROM pg_class WHERE oid = to_regclass(?))::text",
+                String.class, table);
+    }
+}
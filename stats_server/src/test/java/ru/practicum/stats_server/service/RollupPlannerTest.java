@@ -0,0 +1,53 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats_server.model.Granularity;
+import ru.practicum.stats_server.service.RollupPlanner.TimeSegment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RollupPlannerTest {
+    private static final List<Granularity> LEVELS = List.of(Granularity.DAY, Granularity.HOUR, Granularity.MINUTE);
+
+    @Test
+    void planSplitsRaggedEdges() {
+        LocalDateTime start = LocalDateTime.of(2026, 9, 1, 22, 58, 30);
+        LocalDateTime end = LocalDateTime.of(2026, 9, 3, 1, 1, 15);
+        List<TimeSegment> segments = RollupPlanner.plan(start, end, LEVELS);
+        assertEquals(List.of(
+                new TimeSegment(null, start, LocalDateTime.of(2026, 9, 1, 22, 59)),
+                new TimeSegment(Granularity.MINUTE, LocalDateTime.of(2026, 9, 1, 22, 59),
+                        LocalDateTime.of(2026, 9, 1, 23, 0)),
+                new TimeSegment(Granularity.HOUR, LocalDateTime.of(2026, 9, 1, 23, 0),
+                        LocalDateTime.of(2026, 9, 2, 0, 0)),
+                new TimeSegment(Granularity.DAY, LocalDateTime.of(2026, 9, 2, 0, 0),
+                        LocalDateTime.of(2026, 9, 3, 0, 0)),
+                new TimeSegment(Granularity.HOUR, LocalDateTime.of(2026, 9, 3, 0, 0),
+                        LocalDateTime.of(2026, 9, 3, 1, 0)),
+                new TimeSegment(Granularity.MINUTE, LocalDateTime.of(2026, 9, 3, 1, 0),
+                        LocalDateTime.of(2026, 9, 3, 1, 1)),
+                new TimeSegment(null, LocalDateTime.of(2026, 9, 3, 1, 1), end)), segments);
+    }
+
+    @Test
+    void planUsesCoarsestFittingLevel() {
+        LocalDateTime day = LocalDateTime.of(2026, 9, 1, 0, 0);
+        assertEquals(List.of(new TimeSegment(Granularity.DAY, day, day.plusDays(2))),
+                RollupPlanner.plan(day, day.plusDays(2), LEVELS));
+        assertEquals(List.of(new TimeSegment(Granularity.HOUR, day.plusHours(1), day.plusHours(3))),
+                RollupPlanner.plan(day.plusHours(1), day.plusHours(3), LEVELS));
+    }
+
+    @Test
+    void planKeepsShortIntervalRaw() {
+        LocalDateTime start = LocalDateTime.of(2026, 9, 1, 10, 0, 10);
+        assertEquals(List.of(new TimeSegment(null, start, start.plusSeconds(30))),
+                RollupPlanner.plan(start, start.plusSeconds(30), LEVELS));
+        assertEquals(List.of(), RollupPlanner.plan(start, start, LEVELS));
+        assertEquals(List.of(new TimeSegment(null, start, start.plusDays(1))),
+                RollupPlanner.plan(start, start.plusDays(1), List.of()));
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.stats_server.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+    private static final double ERROR = 0.02;
+
+    @Test
+    void estimateWithinError() {
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.precisionForError(ERROR));
+        int unique = 200_000;
+        for (int i = 0; i < unique; i++) {
+            sketch.add(ip(i));
+            sketch.add(ip(i));
+        }
+        assertEquals(unique, sketch.estimate(), unique * ERROR * 3);
+    }
+
+    @Test
+    void smallCardinalityIsExact() {
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.precisionForError(ERROR));
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 10; i++) {
+            sketch.add(ip(i));
+        }
+        assertEquals(10, sketch.estimate());
+    }
+
+    @Test
+    void sparseAndDenseRoundTrip() {
+        HyperLogLog sparse = new HyperLogLog(12);
+        for (int i = 0; i < 100; i++) {
+            sparse.add(ip(i));
+        }
+        byte[] sparseBytes = sparse.toBytes();
+        assertTrue(sparseBytes.length < 1 << 12);
+        assertArrayEquals(sparseBytes, HyperLogLog.fromBytes(sparseBytes).toBytes());
+        assertEquals(sparse.estimate(), HyperLogLog.fromBytes(sparseBytes).estimate());
+
+        HyperLogLog dense = new HyperLogLog(12);
+        for (int i = 0; i < 100_000; i++) {
+            dense.add(ip(i));
+        }
+        byte[] denseBytes = dense.toBytes();
+        assertEquals(2 + (1 << 12), denseBytes.length);
+        HyperLogLog restored = HyperLogLog.fromBytes(denseBytes);
+        assertEquals(12, restored.getPrecision());
+        assertEquals(dense.estimate(), restored.estimate());
+    }
+
+    @Test
+    void mergeEqualsUnion() {
+        HyperLogLog first = new HyperLogLog(14);
+        HyperLogLog second = new HyperLogLog(14);
+        HyperLogLog union = new HyperLogLog(14);
+        for (int i = 0; i < 30_000; i++) {
+            first.add(ip(i));
+            union.add(ip(i));
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            second.add(ip(i));
+            union.add(ip(i));
+        }
+        first.merge(second);
+        assertArrayEquals(union.toBytes(), first.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(12)));
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+    }
+}